@@ -3,6 +3,7 @@ package ru.practicum.shareit;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,6 +11,8 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.InternalServerErrorException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+import ru.practicum.shareit.exception.UnprocessableEntityException;
 
 import javax.validation.ValidationException;
 import java.util.HashMap;
@@ -69,6 +72,32 @@ public class ErrorHandler {
         );
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Map<String, String>> handlePreconditionFailedException(final PreconditionFailedException e) {
+        log.error("Ошибка! {}", e.getMessage());
+        return new ResponseEntity<>(
+                Map.of("error", e.getMessage()), HttpStatus.PRECONDITION_FAILED
+        );
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Map<String, String>> handleUnprocessableEntityException(
+            final UnprocessableEntityException e) {
+        log.error("Ошибка! {}", e.getMessage());
+        return new ResponseEntity<>(
+                Map.of("error", e.getMessage()), HttpStatus.UNPROCESSABLE_ENTITY
+        );
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailure(
+            final ObjectOptimisticLockingFailureException e) {
+        log.error("Ошибка! {}", e.getMessage());
+        return new ResponseEntity<>(
+                Map.of("error", "Данные были изменены другим запросом"), HttpStatus.PRECONDITION_FAILED
+        );
+    }
+
     @ExceptionHandler
     public ResponseEntity<Map<String, String>> handleInternalServerErrorException(final InternalServerErrorException e) {
         log.error("Ошибка! {}", e.getMessage());
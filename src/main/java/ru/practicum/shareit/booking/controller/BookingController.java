@@ -2,74 +2,151 @@ package ru.practicum.shareit.booking.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingCreatedDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.context.ActingUser;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.idempotency.IdempotencyKeys;
+import ru.practicum.shareit.user.model.User;
 
 import javax.validation.Valid;
 import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @RestController
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService service;
+    private final EntityTags entityTags;
+    private final IdempotencyKeys idempotencyKeys;
 
     @Autowired
-    public BookingController(BookingService service) {
+    public BookingController(BookingService service, EntityTags entityTags, IdempotencyKeys idempotencyKeys) {
         this.service = service;
+        this.entityTags = entityTags;
+        this.idempotencyKeys = idempotencyKeys;
     }
 
     @PostMapping
     public ResponseEntity<BookingDto> addBooking(@Valid @RequestBody BookingCreatedDto bookingCreatedDto,
-                                                 @RequestHeader("X-Sharer-User-Id") long userId) {
+                                                 @ActingUser User user,
+                                                 @RequestHeader(value = IdempotencyKeys.HEADER, required = false)
+                                                 String idempotencyKey) {
         log.info("Получен запрос POST на дабовление бронирования");
-        BookingDto bookingDto = service.addBooking(bookingCreatedDto, userId);
-        log.info("Бронь с ID: {} успешно добавлена!", bookingDto);
-        return new ResponseEntity<>(bookingDto, HttpStatus.OK);
+        ResponseEntity<BookingDto> response = idempotencyKeys.execute(idempotencyKey, "bookings:" + user.getId(),
+                bookingCreatedDto,
+                () -> service.addBooking(bookingCreatedDto, user.getId()));
+        log.info("Бронь с ID: {} успешно добавлена!", response.getBody());
+        return response;
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookingBatchResultDto>> addBookings(
+            @RequestBody List<BookingCreatedDto> bookingCreatedDtos,
+            @ActingUser User user) {
+        log.info("Получен запрос POST на добавление {} бронирований", bookingCreatedDtos.size());
+        List<BookingBatchResultDto> results = service.addBookings(bookingCreatedDtos, user.getId());
+        log.info("Добавлено {} из {} бронирований", results.stream().filter(result -> result.getError() == null).count(),
+                results.size());
+        return new ResponseEntity<>(results, HttpStatus.OK);
     }
 
     @PatchMapping("/{bookingId}")
     public ResponseEntity<BookingDto> approveBooking(@PathVariable long bookingId,
                                                      @RequestParam(name = "approved") boolean status,
-                                                     @RequestHeader("X-Sharer-User-Id") long userId) {
+                                                     @ActingUser User user,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                     String ifMatch) {
         log.info("Получен запрос PATCH на изменение статуса бронирования");
-        BookingDto bookingDto = service.approveBooking(bookingId, status, userId);
+        BookingDto bookingDto = service.approveBooking(bookingId, status, user.getId(),
+                entityTags.expectedVersion(ifMatch));
         log.info("Статус брони с ID {} успешно изменена!", bookingId);
-        return new ResponseEntity<>(bookingDto, HttpStatus.OK);
+        return entityTags.ok(bookingDto, bookingDto.getVersion());
+    }
+
+    @PatchMapping("/batch")
+    public ResponseEntity<List<BookingBatchResultDto>> approveBookings(
+            @RequestBody List<Long> bookingIds,
+            @RequestParam(name = "approved") boolean status,
+            @ActingUser User user) {
+        log.info("Получен запрос PATCH на изменение статуса {} бронирований", bookingIds.size());
+        List<BookingBatchResultDto> results = service.approveBookings(bookingIds, status, user.getId());
+        log.info("Статус изменен у {} из {} бронирований",
+                results.stream().filter(result -> result.getError() == null).count(), results.size());
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<BookingSummaryDto> getUserSummary(@ActingUser User user) {
+        log.info("Получен запрос GET на получение счетчиков бронирований пользователя с ID: {}", user.getId());
+        return new ResponseEntity<>(service.getUserSummary(user.getId()), HttpStatus.OK);
+    }
+
+    @GetMapping("/owner/summary")
+    public ResponseEntity<BookingSummaryDto> getOwnerSummary(@ActingUser User user) {
+        log.info("Получен запрос GET на получение счетчиков бронирований вещей пользователя с ID: {}", user.getId());
+        return new ResponseEntity<>(service.getOwnerSummary(user.getId()), HttpStatus.OK);
     }
 
     @GetMapping("/{bookingId}")
     public ResponseEntity<BookingDto> getBookingById(@PathVariable long bookingId,
-                                                     @RequestHeader("X-Sharer-User-Id") long userId) {
+                                                     @ActingUser User user) {
         log.info("Получен запрос GET на получение брони по ID: {}", bookingId);
-        BookingDto bookingDto = service.getBookingById(bookingId, userId);
+        BookingDto bookingDto = service.getBookingById(bookingId, user.getId());
         log.info("Вывод брони с ID: {}", bookingId);
-        return new ResponseEntity<>(bookingDto, HttpStatus.OK);
+        return entityTags.ok(bookingDto, bookingDto.getVersion());
     }
 
     @GetMapping
     public ResponseEntity<Collection<BookingDto>> getAllBookingsByUser(
             @RequestParam(name = "state", defaultValue = "ALL") String state,
-            @RequestHeader("X-Sharer-User-Id") long bookerId,
+            @ActingUser User user,
             @RequestParam(value = "from", defaultValue = "0") Integer start,
-            @RequestParam(value = "size", defaultValue = "10") Integer size) {
-        log.info("Получен запрос GET на получение всех бронирований пользователя c ID: {}", bookerId);
+            @RequestParam(value = "size", defaultValue = "10") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "itemId", required = false) Long itemId) {
+        log.info("Получен запрос GET на получение всех бронирований пользователя c ID: {}", user.getId());
         log.info("Вывод всех бронирований");
-        return new ResponseEntity<>(service.getUserBookings(state, bookerId, start, size), HttpStatus.OK);
+        if (cursor != null) {
+            return toResponse(service.getUserBookingsPage(state, user.getId(), itemId, cursor, size));
+        }
+        return new ResponseEntity<>(service.getUserBookings(state, user.getId(), itemId, start, size), HttpStatus.OK);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Collection<BookingDto>> getBookingsByUser(
             @RequestParam(name = "state", defaultValue = "ALL") String state,
-            @RequestHeader("X-Sharer-User-Id") long userId,
+            @ActingUser User user,
             @RequestParam(value = "from", defaultValue = "0") Integer start,
-            @RequestParam(value = "size", defaultValue = "10") Integer size) {
-        log.info("Получен запрос GET на получение всех бронирований вещей принадлежащих пользователю с ID: {}", userId);
+            @RequestParam(value = "size", defaultValue = "10") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "itemId", required = false) Long itemId) {
+        log.info("Получен запрос GET на получение всех бронирований вещей принадлежащих пользователю с ID: {}",
+                user.getId());
         log.info("Вывод всех бронирований");
-        return new ResponseEntity<>(service.getAllBookingsByUserOwner(state, userId, start, size), HttpStatus.OK);
+        if (cursor != null) {
+            return toResponse(service.getOwnerBookingsPage(state, user.getId(), itemId, cursor, size));
+        }
+        return new ResponseEntity<>(service.getAllBookingsByUserOwner(state, user.getId(), itemId, start, size),
+                HttpStatus.OK);
+    }
+
+    private ResponseEntity<Collection<BookingDto>> toResponse(BookingPageDto page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.set(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return new ResponseEntity<>(page.getBookings(), headers, HttpStatus.OK);
     }
 }
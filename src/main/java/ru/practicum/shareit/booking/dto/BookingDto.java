@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,4 +24,6 @@ public class BookingDto {
     private Status status;
     private ItemDto item;
     private UserDto booker;
+    @JsonIgnore
+    private Long version;
 }
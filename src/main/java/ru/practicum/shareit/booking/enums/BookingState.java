@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.enums;
+
+public enum BookingState {
+    ALL,
+    CURRENT,
+    PAST,
+    FUTURE,
+    WAITING,
+    REJECTED,
+    EXPIRED
+}
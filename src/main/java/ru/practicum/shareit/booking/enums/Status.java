@@ -3,5 +3,6 @@ package ru.practicum.shareit.booking.enums;
 public enum Status {
     REJECTED,
     APPROVED,
-    WAITING
+    WAITING,
+    EXPIRED
 }
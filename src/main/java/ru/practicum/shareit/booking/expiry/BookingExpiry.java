@@ -0,0 +1,231 @@
+package ru.practicum.shareit.booking.expiry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.schedule.BookingSchedule;
+import ru.practicum.shareit.booking.storage.BookingDeadline;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.summary.BookingSummary;
+import ru.practicum.shareit.transaction.TransactionCallbacks;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Сроки бронирований в колесе таймеров. В момент начала неподтвержденная бронь (WAITING)
+ * переводится в EXPIRED пакетными UPDATE и освобождает интервал в {@link BookingSchedule};
+ * в момент окончания интервал любой брони убирается из дерева занятости. Оба срока
+ * переносят бронь между счетчиками FUTURE, CURRENT и PAST в {@link BookingSummary}.
+ * При старте просроченные брони завершаются одним UPDATE, остальные сроки читаются из базы.
+ * Сроки новой брони попадают в колесо только после коммита, а перед переносом счетчиков
+ * проверяется, что бронь все еще есть в базе. Если база недоступна, сроки возвращаются
+ * в колесо и обрабатываются на следующем тике.
+ */
+@Slf4j
+@Component
+public class BookingExpiry {
+    static final int BATCH_SIZE = 500;
+    private static final int WHEEL_SIZE = 64;
+    private final BookingStorage storage;
+    private final BookingSchedule bookingSchedule;
+    private final BookingSummary bookingSummary;
+    private final long tick;
+    private final TimingWheel<Deadline> wheel;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "booking-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BookingExpiry(BookingStorage storage, BookingSchedule bookingSchedule, BookingSummary bookingSummary,
+                         @Value("${shareit.booking.expiry.tick-ms:1000}") long tick) {
+        this.storage = storage;
+        this.bookingSchedule = bookingSchedule;
+        this.bookingSummary = bookingSummary;
+        this.tick = tick;
+        this.wheel = new TimingWheel<>(tick, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        recover();
+        executor.scheduleWithFixedDelay(this::tick, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public void schedule(Booking booking) {
+        long bookingId = booking.getId();
+        long itemId = booking.getItem().getId();
+        long bookerId = booking.getBooker().getId();
+        long ownerId = booking.getItem().getUser().getId();
+        long start = toMillis(booking.getStart());
+        long end = toMillis(booking.getEnd());
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (wheel) {
+                wheel.add(new Deadline(Kind.START, bookingId, itemId, bookerId, ownerId), start);
+                wheel.add(new Deadline(Kind.END, bookingId, itemId, bookerId, ownerId), end);
+            }
+        });
+    }
+
+    void recover() {
+        LocalDateTime now = LocalDateTime.now();
+        int expired = storage.changeStatusStartedBefore(now, Status.WAITING, Status.EXPIRED);
+        bookingSummary.rebuild(now);
+        List<BookingDeadline> deadlines = storage.findDeadlines(now);
+        synchronized (wheel) {
+            for (BookingDeadline deadline : deadlines) {
+                if (deadline.getStartTime().isAfter(now)) {
+                    wheel.add(deadline(Kind.START, deadline), toMillis(deadline.getStartTime()));
+                }
+                wheel.add(deadline(Kind.END, deadline), toMillis(deadline.getEndTime()));
+            }
+        }
+        log.info("Просрочено при старте {} бронирований, загружено сроков: {}", expired, deadlines.size());
+    }
+
+    void expire(long now) {
+        List<Deadline> advanced;
+        synchronized (wheel) {
+            advanced = wheel.advance(now);
+        }
+        List<Deadline> due;
+        try {
+            due = persisted(advanced);
+        } catch (RuntimeException | Error e) {
+            requeue(advanced, now);
+            throw e;
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        for (Deadline deadline : due) {
+            if (deadline.kind == Kind.START) {
+                bookingSummary.started(deadline.bookerId, deadline.ownerId);
+            } else if (deadline.kind == Kind.END) {
+                bookingSummary.ended(deadline.bookerId, deadline.ownerId);
+                bookingSchedule.release(deadline.itemId, deadline.bookingId);
+            }
+        }
+        List<Deadline> starts = due.stream()
+                .filter(deadline -> deadline.kind != Kind.END)
+                .collect(Collectors.toList());
+        for (int from = 0; from < starts.size(); from += BATCH_SIZE) {
+            List<Deadline> batch = starts.subList(from, Math.min(from + BATCH_SIZE, starts.size()));
+            try {
+                expireBatch(batch);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось завершить {} просроченных бронирований, повтор через {} мс", batch.size(), tick, e);
+                requeue(batch.stream().map(Deadline::retry).collect(Collectors.toList()), now);
+            }
+        }
+    }
+
+    int pending() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Отбрасывает сроки броней, которых уже нет в базе (например, удаленных вместе с вещью).
+     */
+    private List<Deadline> persisted(List<Deadline> due) {
+        Set<Long> ids = new HashSet<>();
+        for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+            ids.addAll(storage.findExistingIds(due.subList(from, Math.min(from + BATCH_SIZE, due.size())).stream()
+                    .map(deadline -> deadline.bookingId)
+                    .collect(Collectors.toSet())));
+        }
+        List<Deadline> kept = due.stream()
+                .filter(deadline -> ids.contains(deadline.bookingId))
+                .collect(Collectors.toList());
+        if (kept.size() < due.size()) {
+            log.debug("Пропущено сроков удаленных бронирований: {}", due.size() - kept.size());
+        }
+        return kept;
+    }
+
+    private void requeue(List<Deadline> deadlines, long now) {
+        synchronized (wheel) {
+            deadlines.forEach(deadline -> wheel.add(deadline, now));
+        }
+    }
+
+    private void expireBatch(List<Deadline> batch) {
+        List<Long> ids = batch.stream().map(deadline -> deadline.bookingId).collect(Collectors.toList());
+        Set<Long> expiredIds = new HashSet<>(storage.expireWaiting(ids));
+        if (expiredIds.isEmpty()) {
+            return;
+        }
+        for (Deadline deadline : batch) {
+            if (expiredIds.contains(deadline.bookingId)) {
+                bookingSchedule.release(deadline.itemId, deadline.bookingId);
+                bookingSummary.statusChanged(deadline.bookerId, deadline.ownerId, Status.WAITING, Status.EXPIRED);
+            }
+        }
+        log.info("Истек срок подтверждения {} бронирований", expiredIds.size());
+    }
+
+    private void tick() {
+        try {
+            expire(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.warn("Ошибка при обработке сроков бронирований", e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static Deadline deadline(Kind kind, BookingDeadline deadline) {
+        return new Deadline(kind, deadline.getId(), deadline.getItemId(), deadline.getBookerId(),
+                deadline.getOwnerId());
+    }
+
+    /**
+     * START — начало брони, END — окончание, RETRY — повтор UPDATE после ошибки
+     * без повторного переноса счетчиков.
+     */
+    private enum Kind {
+        START, END, RETRY
+    }
+
+    private static class Deadline {
+        private final Kind kind;
+        private final long bookingId;
+        private final long itemId;
+        private final long bookerId;
+        private final long ownerId;
+
+        Deadline(Kind kind, long bookingId, long itemId, long bookerId, long ownerId) {
+            this.kind = kind;
+            this.bookingId = bookingId;
+            this.itemId = itemId;
+            this.bookerId = bookerId;
+            this.ownerId = ownerId;
+        }
+
+        Deadline retry() {
+            return new Deadline(Kind.RETRY, bookingId, itemId, bookerId, ownerId);
+        }
+    }
+}
@@ -32,6 +32,7 @@ public class BookingMapper {
                 .booker(userMapper.transformUserToUserDto(booking.getBooker()))
                 .item(itemMapper.transformItemToItemDto(booking.getItem()))
                 .status(booking.getStatus())
+                .version(booking.getVersion())
                 .build();
     }
 
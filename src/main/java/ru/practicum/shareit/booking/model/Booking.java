@@ -1,8 +1,10 @@
 package ru.practicum.shareit.booking.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Generated;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import lombok.experimental.SuperBuilder;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.item.model.Item;
@@ -16,21 +18,35 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Entity
 @Table(name = "booking")
+@NamedEntityGraph(name = Booking.WITH_ITEM_AND_BOOKER, attributeNodes = {
+        @NamedAttributeNode("item"),
+        @NamedAttributeNode("booker")
+})
 @Generated
 public class Booking {
+    public static final String WITH_ITEM_AND_BOOKER = "Booking.withItemAndBooker";
+    public static final String SEQUENCE = "booking_seq";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = Booking.SEQUENCE)
+    @SequenceGenerator(name = Booking.SEQUENCE, sequenceName = Booking.SEQUENCE, allocationSize = 50)
     private Long id;
     @Column(name = "start_time")
     private LocalDateTime start;
     @Column(name = "end_time")
     private LocalDateTime end;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id", referencedColumnName = "id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Item item;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id", referencedColumnName = "id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User booker;
     @Enumerated(EnumType.ORDINAL)
     private Status status;
+    @Version
+    private Long version;
 }
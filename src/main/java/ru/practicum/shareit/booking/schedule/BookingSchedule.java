@@ -0,0 +1,142 @@
+package ru.practicum.shareit.booking.schedule;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.transaction.TransactionCallbacks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Занятость вещей: для каждой вещи держит дерево интервалов WAITING и APPROVED бронирований,
+ * которое загружается из базы при первом обращении и удаляется, когда в нем не остается броней.
+ * Проверка пересечения и запись брони выполняются под блокировкой, выбранной по ID вещи
+ * из фиксированного набора.
+ */
+@Slf4j
+@Component
+public class BookingSchedule {
+    static final int STRIPES = 64;
+    private static final List<Status> ACTIVE = List.of(Status.WAITING, Status.APPROVED);
+
+    private final BookingStorage storage;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final Map<Long, IntervalTree> trees = new ConcurrentHashMap<>();
+
+    public BookingSchedule(BookingStorage storage) {
+        this.storage = storage;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public Booking book(Booking booking, UnaryOperator<Booking> save) {
+        long itemId = booking.getItem().getId();
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            IntervalTree tree = treeFor(itemId);
+            checkFree(tree, itemId, booking.getStart(), booking.getEnd());
+            Booking saved = save.apply(booking);
+            tree.add(saved.getId(), saved.getStart(), saved.getEnd());
+            TransactionCallbacks.afterRollback(() -> release(itemId, saved.getId()));
+            return saved;
+        } finally {
+            dropIfEmpty(itemId);
+            lock.unlock();
+        }
+    }
+
+    public void activate(Booking booking) {
+        long itemId = booking.getItem().getId();
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            IntervalTree tree = treeFor(itemId);
+            if (tree.contains(booking.getId())) {
+                return;
+            }
+            checkFree(tree, itemId, booking.getStart(), booking.getEnd());
+            tree.add(booking.getId(), booking.getStart(), booking.getEnd());
+            TransactionCallbacks.afterRollback(() -> release(itemId, booking.getId()));
+        } finally {
+            dropIfEmpty(itemId);
+            lock.unlock();
+        }
+    }
+
+    public void release(Booking booking) {
+        long itemId = booking.getItem().getId();
+        if (release(itemId, booking.getId())) {
+            TransactionCallbacks.afterRollback(() -> restore(itemId, booking));
+        }
+    }
+
+    public boolean release(long itemId, long bookingId) {
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            IntervalTree tree = trees.get(itemId);
+            return tree != null && tree.remove(bookingId);
+        } finally {
+            dropIfEmpty(itemId);
+            lock.unlock();
+        }
+    }
+
+    private void restore(long itemId, Booking booking) {
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            IntervalTree tree = trees.get(itemId);
+            if (tree != null) {
+                tree.add(booking.getId(), booking.getStart(), booking.getEnd());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private IntervalTree treeFor(long itemId) {
+        IntervalTree tree = trees.get(itemId);
+        if (tree == null) {
+            IntervalTree loaded = new IntervalTree();
+            storage.findAllByItemIdAndStatusInAndEndAfter(itemId, ACTIVE, LocalDateTime.now())
+                    .forEach(booking -> loaded.add(booking.getId(), booking.getStart(), booking.getEnd()));
+            log.debug("Загружено {} активных бронирований вещи с ID {}", loaded.size(), itemId);
+            trees.put(itemId, loaded);
+            tree = loaded;
+        }
+        return tree;
+    }
+
+    int itemCount() {
+        return trees.size();
+    }
+
+    //Вызывается под блокировкой вещи: пустое дерево при следующем обращении загрузится из базы заново
+    private void dropIfEmpty(long itemId) {
+        IntervalTree tree = trees.get(itemId);
+        if (tree != null && tree.size() == 0) {
+            trees.remove(itemId);
+        }
+    }
+
+    private void checkFree(IntervalTree tree, long itemId, LocalDateTime start, LocalDateTime end) {
+        if (tree.overlaps(start, end)) {
+            throw new BadRequestException(String.format("Вещь с ID %d уже забронирована на эти даты", itemId));
+        }
+    }
+
+    private ReentrantLock lockFor(long itemId) {
+        return locks[Math.floorMod(Long.hashCode(itemId), STRIPES)];
+    }
+}
@@ -1,21 +1,37 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingCreatedDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.model.Booking;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface BookingService {
     BookingDto addBooking(BookingCreatedDto bookingCreatedDto, long userId);
 
-    BookingDto approveBooking(long bookingId, boolean status, long userId);
+    List<BookingBatchResultDto> addBookings(List<BookingCreatedDto> bookingCreatedDtos, long userId);
+
+    BookingDto approveBooking(long bookingId, boolean status, long userId, Long version);
+
+    List<BookingBatchResultDto> approveBookings(List<Long> bookingIds, boolean status, long userId);
 
     BookingDto getBookingById(long bookingId, long userId);
 
-    Collection<BookingDto> getUserBookings(String state, Long bookerId, Integer start, Integer size);
+    Collection<BookingDto> getUserBookings(String state, Long bookerId, Long itemId, Integer start, Integer size);
+
+    Collection<BookingDto> getAllBookingsByUserOwner(String state, Long userId, Long itemId, Integer start, Integer size);
+
+    BookingPageDto getUserBookingsPage(String state, Long bookerId, Long itemId, String cursor, Integer size);
+
+    BookingPageDto getOwnerBookingsPage(String state, Long userId, Long itemId, String cursor, Integer size);
+
+    BookingSummaryDto getUserSummary(long userId);
 
-    Collection<BookingDto> getAllBookingsByUserOwner(String state, Long userId, Integer start, Integer size);
+    BookingSummaryDto getOwnerSummary(long userId);
 
     Booking validateBooking(long bookingId);
 }
@@ -1,41 +1,71 @@
 package ru.practicum.shareit.booking.service;
 
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingCreatedDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.expiry.BookingExpiry;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.schedule.BookingSchedule;
+import ru.practicum.shareit.booking.storage.BookingCursor;
+import ru.practicum.shareit.booking.storage.BookingFilter;
 import ru.practicum.shareit.booking.storage.BookingStorage;
 import ru.practicum.shareit.booking.storage.BookingsPageableStorage;
+import ru.practicum.shareit.booking.summary.BookingSummary;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.InternalServerErrorException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class BookingServiceImpl implements BookingService {
+    static final int MAX_BATCH_SIZE = 100;
+
     private final ItemService itemService;
     private final UserService userService;
     private final BookingStorage storage;
     private final BookingsPageableStorage bookingsPageableStorage;
     private final BookingMapper mapper;
+    private final BookingSchedule bookingSchedule;
+    private final BookingExpiry bookingExpiry;
+    private final BookingSummary bookingSummary;
 
-    public BookingServiceImpl(ItemService itemService, UserService userService, BookingStorage storage, BookingsPageableStorage bookingsPageableStorage, BookingMapper mapper) {
+    public BookingServiceImpl(ItemService itemService, UserService userService, BookingStorage storage,
+                              BookingsPageableStorage bookingsPageableStorage, BookingMapper mapper,
+                              BookingSchedule bookingSchedule, BookingExpiry bookingExpiry,
+                              BookingSummary bookingSummary) {
         this.itemService = itemService;
         this.userService = userService;
         this.storage = storage;
         this.bookingsPageableStorage = bookingsPageableStorage;
         this.mapper = mapper;
+        this.bookingSchedule = bookingSchedule;
+        this.bookingExpiry = bookingExpiry;
+        this.bookingSummary = bookingSummary;
     }
 
     @Override
@@ -43,131 +73,312 @@ public class BookingServiceImpl implements BookingService {
     public BookingDto addBooking(BookingCreatedDto bookingCreatedDto, long userId) {
         Booking booking = mapper.transformBookingCreatedDtoToBooking(bookingCreatedDto);
         Item item = itemService.validateItemById(bookingCreatedDto.getItemId());
-        if (!item.getAvailable()) {
-            throw new BadRequestException(String.format("Вещь с ID %d нельзя арендовать", item.getId()));
-        }
-        if (booking.getEnd().isBefore(booking.getStart()) || booking.getStart().equals(booking.getEnd())) {
-            throw new BadRequestException("Неверная дата бронировния");
+        checkItemAndDates(booking, item);
+        User user = userService.validateUserDto(userId);
+        checkBooker(booking, user);
+        Booking saved = bookingSchedule.book(booking, storage::save);
+        bookingExpiry.schedule(saved);
+        bookingSummary.added(saved);
+        return mapper.transformBookingToBookingDto(saved);
+    }
+
+    @Override
+    @Transactional
+    public List<BookingBatchResultDto> addBookings(List<BookingCreatedDto> bookingCreatedDtos, long userId) {
+        if (bookingCreatedDtos.isEmpty() || bookingCreatedDtos.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException(
+                    String.format("В пакете должно быть от 1 до %d бронирований", MAX_BATCH_SIZE));
         }
-        booking.setItem(item);
         User user = userService.validateUserDto(userId);
-        if (user.equals(item.getUser())) {
-            throw new NotFoundException("Владелец вещи не может ее забронировать!");
+        Map<Long, Item> items = itemService.getItemsByIds(bookingCreatedDtos.stream()
+                .map(BookingCreatedDto::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingBatchResultDto> results = new ArrayList<>(bookingCreatedDtos.size());
+        for (int i = 0; i < bookingCreatedDtos.size(); i++) {
+            BookingCreatedDto bookingCreatedDto = bookingCreatedDtos.get(i);
+            try {
+                if (bookingCreatedDto.getStart() == null || bookingCreatedDto.getEnd() == null
+                        || !bookingCreatedDto.getStart().isAfter(now)) {
+                    throw new BadRequestException("Неверная дата бронировния");
+                }
+                Item item = items.get(bookingCreatedDto.getItemId());
+                if (item == null) {
+                    throw new NotFoundException(
+                            String.format("Вещь с ID %d не найдена", bookingCreatedDto.getItemId()));
+                }
+                Booking booking = mapper.transformBookingCreatedDtoToBooking(bookingCreatedDto);
+                checkItemAndDates(booking, item);
+                checkBooker(booking, user);
+                Booking saved = bookingSchedule.book(booking, storage::save);
+                bookingExpiry.schedule(saved);
+                bookingSummary.added(saved);
+                results.add(BookingBatchResultDto.builder()
+                        .index(i)
+                        .booking(mapper.transformBookingToBookingDto(saved))
+                        .build());
+            } catch (BadRequestException e) {
+                results.add(failed(i, HttpStatus.BAD_REQUEST, e));
+            } catch (NotFoundException e) {
+                results.add(failed(i, HttpStatus.NOT_FOUND, e));
+            }
         }
-        booking.setBooker(user);
-        return mapper.transformBookingToBookingDto(storage.save(booking));
+        storage.flush();
+        return results;
     }
 
     @Override
     @Transactional
-    public BookingDto approveBooking(long bookingId, boolean status, long userId) {
+    public BookingDto approveBooking(long bookingId, boolean status, long userId, Long version) {
         Booking booking = validateBooking(bookingId);
-        if (!booking.getItem().getUser().getId().equals(userId)) {
-            throw new NotFoundException("Подтверждение брони может быть выполнено только владельцем!");
+        checkItemOwner(booking, userId);
+        if (version != null && !version.equals(booking.getVersion())) {
+            throw new PreconditionFailedException(
+                    String.format("Бронь с ID %d была изменена, текущая версия %d", bookingId, booking.getVersion()));
         }
-        if (status) {
-            if (booking.getStatus() == Status.APPROVED) {
-                throw new BadRequestException("Нельзя подтверить бронь после подтверждения!");
+        Status previous = booking.getStatus();
+        booking.setStatus(changeStatus(booking, status));
+        storage.saveAndFlush(booking);
+        bookingSummary.statusChanged(booking, previous, booking.getStatus());
+        return mapper.transformBookingToBookingDto(booking);
+    }
+
+    /**
+     * Статус каждой брони проверяется в памяти, затем строки с этим статусом блокируются
+     * (SELECT ... FOR UPDATE) и меняются одним UPDATE на исходный статус. Бронь, статус которой
+     * успели изменить параллельно, получает ошибку 412, остальные изменяются.
+     */
+    @Override
+    @Transactional
+    public List<BookingBatchResultDto> approveBookings(List<Long> bookingIds, boolean status, long userId) {
+        if (bookingIds.isEmpty() || bookingIds.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException(
+                    String.format("В пакете должно быть от 1 до %d бронирований", MAX_BATCH_SIZE));
+        }
+        Map<Long, Booking> bookings = storage.findAllByIdIn(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, booking -> booking));
+        Status newStatus = status ? Status.APPROVED : Status.REJECTED;
+        Map<Long, Integer> indexes = new LinkedHashMap<>();
+        List<BookingBatchResultDto> results = new ArrayList<>(bookingIds.size());
+        for (int i = 0; i < bookingIds.size(); i++) {
+            Long bookingId = bookingIds.get(i);
+            results.add(BookingBatchResultDto.builder().index(i).build());
+            try {
+                Booking booking = bookings.get(bookingId);
+                if (booking == null) {
+                    throw new NotFoundException(String.format("Бронь с ID %d не найдена", bookingId));
+                }
+                if (indexes.containsKey(bookingId)) {
+                    throw new BadRequestException(String.format("Бронь с ID %d указана повторно", bookingId));
+                }
+                checkItemOwner(booking, userId);
+                checkStatusChange(booking, status);
+                indexes.put(bookingId, i);
+            } catch (BadRequestException e) {
+                results.set(i, failed(i, HttpStatus.BAD_REQUEST, e));
+            } catch (NotFoundException e) {
+                results.set(i, failed(i, HttpStatus.NOT_FOUND, e));
             }
-            booking.setStatus(Status.APPROVED);
-        } else {
-            if (booking.getStatus() == Status.REJECTED) {
-                throw new BadRequestException("Нельзя отклонить бронь после отклонения!");
+        }
+        Map<Status, List<Booking>> byStatus = indexes.keySet().stream()
+                .map(bookings::get)
+                .collect(Collectors.groupingBy(Booking::getStatus, LinkedHashMap::new, Collectors.toList()));
+        for (Map.Entry<Status, List<Booking>> group : byStatus.entrySet()) {
+            Status expected = group.getKey();
+            Set<Long> locked = new HashSet<>(storage.lockIdsByStatus(
+                    group.getValue().stream().map(Booking::getId).collect(Collectors.toList()), expected));
+            List<Long> changed = new ArrayList<>();
+            for (Booking booking : group.getValue()) {
+                int index = indexes.get(booking.getId());
+                try {
+                    if (!locked.contains(booking.getId())) {
+                        throw new PreconditionFailedException(
+                                String.format("Бронь с ID %d была изменена, повторите запрос", booking.getId()));
+                    }
+                    updateSchedule(booking, newStatus);
+                    changed.add(booking.getId());
+                } catch (PreconditionFailedException e) {
+                    results.set(index, failed(index, HttpStatus.PRECONDITION_FAILED, e));
+                } catch (BadRequestException e) {
+                    results.set(index, failed(index, HttpStatus.BAD_REQUEST, e));
+                }
+            }
+            if (!changed.isEmpty() && storage.updateStatus(changed, expected, newStatus) != changed.size()) {
+                throw new PreconditionFailedException("Бронирования были изменены, повторите запрос");
             }
-            booking.setStatus(Status.REJECTED);
         }
-        storage.save(booking);
-        return mapper.transformBookingToBookingDto(booking);
+        for (BookingBatchResultDto result : results) {
+            if (result.getError() == null) {
+                Booking booking = bookings.get(bookingIds.get(result.getIndex()));
+                bookingSummary.statusChanged(booking, booking.getStatus(), newStatus);
+                booking.setStatus(newStatus);
+                booking.setVersion(booking.getVersion() + 1);
+                result.setBooking(mapper.transformBookingToBookingDto(booking));
+            }
+        }
+        return results;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public BookingDto getBookingById(long bookingId, long userId) {
         Booking booking = validateBooking(bookingId);
         return checkBookingOwnerOrItemOwner(booking, userId);
     }
 
     @Override
-    public Collection<BookingDto> getUserBookings(String state, Long userId, Integer start, Integer size) {
-        if (start < 0) {
-            throw new BadRequestException("Значение from не может быть отрицательным");
+    @Transactional(readOnly = true)
+    public Collection<BookingDto> getUserBookings(String state, Long userId, Long itemId, Integer start, Integer size) {
+        return getBookings(BookingRole.BOOKER, state, userId, itemId, start, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<BookingDto> getAllBookingsByUserOwner(String state, Long userId, Long itemId,
+                                                            Integer start, Integer size) {
+        return getBookings(BookingRole.OWNER, state, userId, itemId, start, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPageDto getUserBookingsPage(String state, Long bookerId, Long itemId, String cursor, Integer size) {
+        return getBookingsPage(BookingRole.BOOKER, state, bookerId, itemId, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPageDto getOwnerBookingsPage(String state, Long userId, Long itemId, String cursor, Integer size) {
+        return getBookingsPage(BookingRole.OWNER, state, userId, itemId, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingSummaryDto getUserSummary(long userId) {
+        userService.validateUserDto(userId);
+        return bookingSummary.getBookerSummary(userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingSummaryDto getOwnerSummary(long userId) {
+        userService.validateUserDto(userId);
+        return bookingSummary.getOwnerSummary(userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Booking validateBooking(long bookingId) {
+        return storage.findById(bookingId).orElseThrow(() ->
+                new NotFoundException(String.format("Бронь с ID %d не найдена", bookingId)));
+    }
+
+    private void checkItemOwner(Booking booking, long userId) {
+        if (!booking.getItem().getUser().getId().equals(userId)) {
+            throw new NotFoundException("Подтверждение брони может быть выполнено только владельцем!");
         }
-        if (size < 1) {
-            throw new BadRequestException("Значение size не может быть меньше 10");
+    }
+
+    private Status changeStatus(Booking booking, boolean status) {
+        Status newStatus = checkStatusChange(booking, status);
+        updateSchedule(booking, newStatus);
+        return newStatus;
+    }
+
+    private Status checkStatusChange(Booking booking, boolean status) {
+        if (booking.getStatus() == Status.EXPIRED) {
+            throw new BadRequestException(String.format("Срок подтверждения брони с ID %d истек", booking.getId()));
         }
-        userService.validateUserDto(userId);
-        Pageable pageable = PageRequest.of(start / size, size);
-        switch (state) {
-            case "ALL":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findAllByBookerIdOrderByStartDesc(userId, pageable));
-            case "PAST":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findAllByEndBeforeAndBookerIdOrderByStartDesc(
-                                LocalDateTime.now(), userId, pageable));
-            case "FUTURE":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findAllByStartAfterAndBookerIdOrderByStartDesc(
-                                LocalDateTime.now(), userId, pageable));
-            case "CURRENT":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findAllByEndAfterAndStartBeforeAndBookerIdOrderByStartDesc(
-                                LocalDateTime.now(), LocalDateTime.now(), userId, pageable));
-            case "WAITING":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findAllByBookerIdAndStatusOrderByStartDesc(
-                                userId, Status.WAITING, pageable));
-            case "REJECTED":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findAllByBookerIdAndStatusOrderByStartDesc(
-                                userId, Status.REJECTED, pageable));
-            default:
-                throw new InternalServerErrorException("Unknown state: " + state);
+        if (status) {
+            if (booking.getStatus() == Status.APPROVED) {
+                throw new BadRequestException("Нельзя подтверить бронь после подтверждения!");
+            }
+            return Status.APPROVED;
+        }
+        if (booking.getStatus() == Status.REJECTED) {
+            throw new BadRequestException("Нельзя отклонить бронь после отклонения!");
         }
+        return Status.REJECTED;
     }
 
-    @Override
-    public Collection<BookingDto> getAllBookingsByUserOwner(String state, Long userId, Integer start, Integer size) {
+    private void updateSchedule(Booking booking, Status newStatus) {
+        if (newStatus == Status.APPROVED) {
+            bookingSchedule.activate(booking);
+        } else {
+            bookingSchedule.release(booking);
+        }
+    }
+
+    private static BookingBatchResultDto failed(int index, HttpStatus httpStatus, RuntimeException e) {
+        return BookingBatchResultDto.builder()
+                .index(index)
+                .status(httpStatus.value())
+                .error(e.getMessage())
+                .build();
+    }
+
+    private void checkItemAndDates(Booking booking, Item item) {
+        if (!item.getAvailable()) {
+            throw new BadRequestException(String.format("Вещь с ID %d нельзя арендовать", item.getId()));
+        }
+        if (booking.getEnd().isBefore(booking.getStart()) || booking.getStart().equals(booking.getEnd())) {
+            throw new BadRequestException("Неверная дата бронировния");
+        }
+        booking.setItem(item);
+    }
+
+    private void checkBooker(Booking booking, User user) {
+        if (Objects.equals(user.getId(), booking.getItem().getUser().getId())) {
+            throw new NotFoundException("Владелец вещи не может ее забронировать!");
+        }
+        booking.setBooker(user);
+    }
+
+    private Collection<BookingDto> getBookings(BookingRole role, String state, Long userId, Long itemId,
+                                               Integer start, Integer size) {
         if (start < 0) {
             throw new BadRequestException("Значение from не может быть отрицательным");
         }
         if (size < 1) {
             throw new BadRequestException("Значение size не может быть меньше 10");
         }
-        Pageable pageable = PageRequest.of(start / size, size);
         userService.validateUserDto(userId);
-        switch (state) {
-            case "ALL":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findAllByItemUserIdOrderByStartDesc(userId, pageable));
-            case "PAST":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findByEndBeforeAndItemUserIdOrderByStartDesc(
-                                LocalDateTime.now(), userId, pageable));
-            case "FUTURE":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findAllByItemUserIdAndStartAfterOrderByStartDesc(
-                                userId, LocalDateTime.now(), pageable));
-            case "CURRENT":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findAllByEndAfterAndStartBeforeAndItemUserIdOrderByStartDesc(
-                                LocalDateTime.now(), LocalDateTime.now(), userId, pageable));
-            case "WAITING":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findAllByItemUserIdAndStatusOrderByStartDesc(
-                                userId, Status.WAITING, pageable));
-            case "REJECTED":
-                return mapper.transformBookingListToBookingDtoList(
-                        bookingsPageableStorage.findAllByItemUserIdAndStatusOrderByStartDesc(
-                                userId, Status.REJECTED, pageable));
-            default:
-                throw new InternalServerErrorException("Unknown state: " + state);
+        BookingFilter filter = toFilter(role, state, userId, itemId);
+        return bookingsPageableStorage.findDtoPage(filter, PageRequest.of(start / size, size));
+    }
+
+    private BookingPageDto getBookingsPage(BookingRole role, String state, Long userId, Long itemId,
+                                           String cursor, Integer size) {
+        if (size < 1) {
+            throw new BadRequestException("Значение size не может быть меньше 10");
         }
+        BookingCursor bookingCursor = BookingCursor.decode(cursor);
+        userService.validateUserDto(userId);
+        List<BookingDto> bookings = bookingsPageableStorage.findDtoPageAfter(
+                toFilter(role, state, userId, itemId), bookingCursor, size);
+        String nextCursor = bookings.size() == size ? BookingCursor.of(bookings.get(bookings.size() - 1)).encode() : null;
+        return BookingPageDto.builder()
+                .bookings(bookings)
+                .nextCursor(nextCursor)
+                .build();
     }
 
-    @Override
-    public Booking validateBooking(long bookingId) {
-        return storage.findById(bookingId).orElseThrow(() ->
-                new NotFoundException(String.format("Бронь с ID %d не найдена", bookingId)));
+    private BookingFilter toFilter(BookingRole role, String state, Long userId, Long itemId) {
+        return BookingFilter.builder()
+                .role(role)
+                .state(parseState(state))
+                .userId(userId)
+                .itemId(itemId)
+                .now(LocalDateTime.now())
+                .build();
+    }
+
+    private BookingState parseState(String state) {
+        try {
+            return BookingState.valueOf(state);
+        } catch (IllegalArgumentException e) {
+            throw new InternalServerErrorException("Unknown state: " + state);
+        }
     }
 
     BookingDto checkBookingOwnerOrItemOwner(Booking booking, long userId) {
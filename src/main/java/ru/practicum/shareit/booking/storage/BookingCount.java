@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.enums.Status;
+
+public interface BookingCount {
+    Long getUserId();
+
+    Status getStatus();
+
+    Long getTotal();
+
+    Long getFutureCount();
+
+    Long getCurrentCount();
+
+    Long getPastCount();
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.storage;
+
+import java.time.LocalDateTime;
+
+public interface BookingDeadline {
+    Long getId();
+
+    Long getItemId();
+
+    Long getBookerId();
+
+    Long getOwnerId();
+
+    LocalDateTime getStartTime();
+
+    LocalDateTime getEndTime();
+}
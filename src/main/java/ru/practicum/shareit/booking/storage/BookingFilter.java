@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.Builder;
+import lombok.Getter;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.BookingState;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Builder
+public class BookingFilter {
+    private final BookingRole role;
+    private final BookingState state;
+    private final long userId;
+    private final Long itemId;
+    private final LocalDateTime now;
+}
@@ -1,41 +1,118 @@
 package ru.practicum.shareit.booking.storage;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface BookingStorage extends JpaRepository<Booking, Long> {
     //Booker
-    List<Booking> findByItemId(long itemId);
-
-    List<Booking> findByItemIdAndBookerId(long itemId, long bookerId);
-
-    List<Booking> findAllByBookerIdOrderByStartDesc(long bookerId);
-
-    List<Booking> findAllByEndBeforeAndBookerIdOrderByStartDesc(LocalDateTime localDateTime, long bookerId);
-
-    List<Booking> findAllByStartAfterAndBookerIdOrderByStartDesc(LocalDateTime localDateTime, long bookerId);
-
-    List<Booking> findAllByEndAfterAndStartBeforeAndBookerIdOrderByStartDesc(LocalDateTime before, LocalDateTime after, long bookerId);
-
-    List<Booking> findAllByBookerIdAndStatusOrderByStartDesc(long bookerId, Status status);
-
-    //ItemOwner
-    List<Booking> findAllByItemUserIdOrderByStartDesc(long userId);
-
-    List<Booking> findByEndBeforeAndItemUserIdOrderByStartDesc(LocalDateTime now, long userId);
-
-    List<Booking> findAllByItemUserIdAndStartAfterOrderByStartDesc(long userId, LocalDateTime now);
-
-    List<Booking> findAllByEndAfterAndStartBeforeAndItemUserIdOrderByStartDesc(LocalDateTime before, LocalDateTime after, long userId);
-
-    List<Booking> findAllByItemUserIdAndStatusOrderByStartDesc(long userId, Status status);
-
-    //For ItemService
-    List<Booking> findAllByItemIdAndEndBeforeOrderByEndDesc(long itemId, LocalDateTime localDateTime);
-
-    List<Booking> findAllByItemIdAndStartAfter(long itemId, LocalDateTime localDateTime);
+    @Query("select b from Booking b where b.item.id = :itemId")
+    List<Booking> findByItemId(@Param("itemId") long itemId);
+
+    @Query("select b from Booking b where b.item.id = :itemId and b.booker.id = :bookerId")
+    List<Booking> findByItemIdAndBookerId(@Param("itemId") long itemId, @Param("bookerId") long bookerId);
+
+    //For BookingSchedule
+    @Query("select b from Booking b where b.item.id = :itemId and b.status in :statuses and b.end > :end")
+    List<Booking> findAllByItemIdAndStatusInAndEndAfter(@Param("itemId") long itemId,
+                                                        @Param("statuses") Collection<Status> statuses,
+                                                        @Param("end") LocalDateTime end);
+
+    //For ItemService: по одной брони на вещь (при равенстве дат — несколько)
+    @Query("select b from Booking b where b.item.id in :itemIds and b.end < :now and b.end = " +
+            "(select max(l.end) from Booking l where l.item.id = b.item.id and l.end < :now)")
+    List<Booking> findLastByItemIdIn(@Param("itemIds") Collection<Long> itemIds, @Param("now") LocalDateTime now);
+
+    @Query("select b from Booking b where b.item.id in :itemIds and b.start > :now and b.start = " +
+            "(select min(n.start) from Booking n where n.item.id = b.item.id and n.start > :now)")
+    List<Booking> findNextByItemIdIn(@Param("itemIds") Collection<Long> itemIds, @Param("now") LocalDateTime now);
+
+    @Query("select b from Booking b where b.item.id in :itemIds and b.start < :now and b.end > :now " +
+            "and b.start = (select min(a.start) from Booking a where a.item.id = b.item.id " +
+            "and a.start < :now and a.end > :now)")
+    List<Booking> findActiveByItemIdIn(@Param("itemIds") Collection<Long> itemIds, @Param("now") LocalDateTime now);
+
+    //For BookingService
+    @Override
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findById(Long id);
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    List<Booking> findAllByIdIn(Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b.id from Booking b where b.id in :ids and b.status = :status")
+    List<Long> lockIdsByStatus(@Param("ids") Collection<Long> ids, @Param("status") Status status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.version = b.version + 1 " +
+            "where b.id in :ids and b.status = :expected " +
+            "and b.status <> ru.practicum.shareit.booking.enums.Status.EXPIRED")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("expected") Status expected,
+                     @Param("status") Status status);
+
+    //For BookingExpiry
+    @Query("select b.id as id, i.id as itemId, b.booker.id as bookerId, i.user.id as ownerId, " +
+            "b.start as startTime, b.end as endTime from Booking b join b.item i where b.end > :now")
+    List<BookingDeadline> findDeadlines(@Param("now") LocalDateTime now);
+
+    @Query("select b.id from Booking b where b.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select b.id from Booking b where b.id in :ids and b.status = :status")
+    List<Long> findIdsByStatus(@Param("ids") Collection<Long> ids, @Param("status") Status status);
+
+    @Transactional
+    @Modifying
+    @Query("update Booking b set b.status = :to, b.version = b.version + 1 " +
+            "where b.id in :ids and b.status = :from")
+    int changeStatus(@Param("ids") Collection<Long> ids, @Param("from") Status from, @Param("to") Status to);
+
+    /**
+     * Переводит брони из WAITING в EXPIRED и возвращает ID переведенных. Чтение и UPDATE идут
+     * в одной транзакции: при ошибке не остается закоммиченного UPDATE без прочитанных ID.
+     */
+    @Transactional
+    default List<Long> expireWaiting(Collection<Long> ids) {
+        List<Long> waiting = findIdsByStatus(ids, Status.WAITING);
+        if (waiting.isEmpty()) {
+            return waiting;
+        }
+        int expired = changeStatus(waiting, Status.WAITING, Status.EXPIRED);
+        return expired == waiting.size() ? waiting : findIdsByStatus(waiting, Status.EXPIRED);
+    }
+
+    @Transactional
+    @Modifying
+    @Query("update Booking b set b.status = :to, b.version = b.version + 1 " +
+            "where b.status = :from and b.start <= :now")
+    int changeStatusStartedBefore(@Param("now") LocalDateTime now, @Param("from") Status from,
+                                  @Param("to") Status to);
+
+    //For BookingSummary
+    @Query("select b.booker.id as userId, b.status as status, count(b) as total, " +
+            "sum(case when b.start > :now then 1 else 0 end) as futureCount, " +
+            "sum(case when b.start < :now and b.end > :now then 1 else 0 end) as currentCount, " +
+            "sum(case when b.end < :now then 1 else 0 end) as pastCount " +
+            "from Booking b group by b.booker.id, b.status")
+    List<BookingCount> countByBooker(@Param("now") LocalDateTime now);
+
+    @Query("select i.user.id as userId, b.status as status, count(b) as total, " +
+            "sum(case when b.start > :now then 1 else 0 end) as futureCount, " +
+            "sum(case when b.start < :now and b.end > :now then 1 else 0 end) as currentCount, " +
+            "sum(case when b.end < :now then 1 else 0 end) as pastCount " +
+            "from Booking b join b.item i group by i.user.id, b.status")
+    List<BookingCount> countByOwner(@Param("now") LocalDateTime now);
 }
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.util.List;
+
+public interface BookingsQueryStorage {
+    List<BookingDto> findDtoPage(BookingFilter filter, Pageable pageable);
+
+    List<BookingDto> findDtoPageAfter(BookingFilter filter, BookingCursor cursor, int size);
+}
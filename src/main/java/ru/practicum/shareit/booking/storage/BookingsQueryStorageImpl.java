@@ -0,0 +1,121 @@
+package ru.practicum.shareit.booking.storage;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.QBooking;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.QItem;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.QUser;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Все списки бронирований строятся одним запросом: item и booker подтягиваются тем же select
+ * (владелец вещи в BookingDto не нужен, фильтр по нему идет по item.user_id), а сортировка
+ * (start_time, id) совпадает с индексами booking_booker_start_idx и booking_item_start_idx.
+ * Выбираются только колонки BookingDto, DTO собираются из строк напрямую,
+ * без управляемых сущностей в persistence context.
+ */
+public class BookingsQueryStorageImpl implements BookingsQueryStorage {
+    private static final QBooking BOOKING = QBooking.booking;
+    private static final QItem ITEM = QItem.item;
+    private static final QUser BOOKER = new QUser("booker");
+    private static final Expression<?>[] DTO_COLUMNS = {
+            BOOKING.id, BOOKING.start, BOOKING.end, BOOKING.status, BOOKING.version,
+            ITEM.id, ITEM.name, ITEM.description, ITEM.available, ITEM.itemRequest.id, ITEM.version,
+            BOOKER.id, BOOKER.name, BOOKER.email, BOOKER.version
+    };
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookingDto> findDtoPage(BookingFilter filter, Pageable pageable) {
+        return toDtos(selectColumns(filter)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch());
+    }
+
+    @Override
+    public List<BookingDto> findDtoPageAfter(BookingFilter filter, BookingCursor cursor, int size) {
+        return toDtos(after(selectColumns(filter), cursor)
+                .limit(size)
+                .fetch());
+    }
+
+    static Predicate toPredicate(BookingFilter filter) {
+        BooleanBuilder where = new BooleanBuilder(filter.getRole() == BookingRole.BOOKER
+                ? BOOKING.booker.id.eq(filter.getUserId())
+                : ITEM.user.id.eq(filter.getUserId()));
+        switch (filter.getState()) {
+            case PAST:
+                where.and(BOOKING.end.lt(filter.getNow()));
+                break;
+            case FUTURE:
+                where.and(BOOKING.start.gt(filter.getNow()));
+                break;
+            case CURRENT:
+                where.and(BOOKING.start.lt(filter.getNow())).and(BOOKING.end.gt(filter.getNow()));
+                break;
+            case WAITING:
+                where.and(BOOKING.status.eq(Status.WAITING));
+                break;
+            case REJECTED:
+                where.and(BOOKING.status.eq(Status.REJECTED));
+                break;
+            case EXPIRED:
+                where.and(BOOKING.status.eq(Status.EXPIRED));
+                break;
+            default:
+                break;
+        }
+        if (filter.getItemId() != null) {
+            where.and(BOOKING.item.id.eq(filter.getItemId()));
+        }
+        return where;
+    }
+
+    private static <T> JPAQuery<T> after(JPAQuery<T> query, BookingCursor cursor) {
+        if (cursor != null) {
+            query.where(BOOKING.start.lt(cursor.getStart())
+                    .or(BOOKING.start.eq(cursor.getStart()).and(BOOKING.id.lt(cursor.getId()))));
+        }
+        return query;
+    }
+
+    private static List<BookingDto> toDtos(List<Tuple> rows) {
+        List<BookingDto> bookings = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            ItemDto item = new ItemDto(row.get(ITEM.id), row.get(ITEM.name), row.get(ITEM.description),
+                    row.get(ITEM.available), null, null, null, row.get(ITEM.itemRequest.id), row.get(ITEM.version));
+            UserDto booker = new UserDto(row.get(BOOKER.id), row.get(BOOKER.name), row.get(BOOKER.email),
+                    row.get(BOOKER.version));
+            bookings.add(new BookingDto(row.get(BOOKING.id), row.get(BOOKING.start), row.get(BOOKING.end),
+                    row.get(BOOKING.status), item, booker, row.get(BOOKING.version)));
+        }
+        return bookings;
+    }
+
+    private JPAQuery<Tuple> selectColumns(BookingFilter filter) {
+        return new JPAQueryFactory(entityManager)
+                .select(DTO_COLUMNS)
+                .from(BOOKING)
+                .innerJoin(BOOKING.item, ITEM)
+                .innerJoin(BOOKING.booker, BOOKER)
+                .where(toPredicate(filter))
+                .orderBy(BOOKING.start.desc(), BOOKING.id.desc());
+    }
+}
@@ -0,0 +1,136 @@
+package ru.practicum.shareit.booking.summary;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingCount;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.transaction.TransactionCallbacks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Счетчики бронирований по состояниям для каждого арендатора и каждого владельца.
+ * Строятся двумя GROUP BY при старте, дальше меняются на месте: статусы после коммита
+ * транзакции, FUTURE → CURRENT → PAST по срокам из колеса таймеров.
+ */
+@Slf4j
+@Component
+public class BookingSummary {
+    private final BookingStorage storage;
+    private volatile Map<Long, Counters> bookers = new ConcurrentHashMap<>();
+    private volatile Map<Long, Counters> owners = new ConcurrentHashMap<>();
+
+    public BookingSummary(BookingStorage storage) {
+        this.storage = storage;
+    }
+
+    public void rebuild(LocalDateTime now) {
+        Map<Long, Counters> rebuiltBookers = load(storage.countByBooker(now));
+        Map<Long, Counters> rebuiltOwners = load(storage.countByOwner(now));
+        bookers = rebuiltBookers;
+        owners = rebuiltOwners;
+        log.info("Счетчики бронирований построены. Арендаторов: {}, владельцев: {}",
+                rebuiltBookers.size(), rebuiltOwners.size());
+    }
+
+    public BookingSummaryDto getBookerSummary(long userId) {
+        return toDto(bookers.get(userId));
+    }
+
+    public BookingSummaryDto getOwnerSummary(long userId) {
+        return toDto(owners.get(userId));
+    }
+
+    public void added(Booking booking) {
+        long bookerId = booking.getBooker().getId();
+        long ownerId = booking.getItem().getUser().getId();
+        Counter status = Counter.of(booking.getStatus());
+        TransactionCallbacks.afterCommit(() -> {
+            add(bookerId, ownerId, Counter.ALL, 1);
+            add(bookerId, ownerId, Counter.FUTURE, 1);
+            add(bookerId, ownerId, status, 1);
+        });
+    }
+
+    public void statusChanged(Booking booking, Status from, Status to) {
+        long bookerId = booking.getBooker().getId();
+        long ownerId = booking.getItem().getUser().getId();
+        TransactionCallbacks.afterCommit(() -> statusChanged(bookerId, ownerId, from, to));
+    }
+
+    public void statusChanged(long bookerId, long ownerId, Status from, Status to) {
+        add(bookerId, ownerId, Counter.of(from), -1);
+        add(bookerId, ownerId, Counter.of(to), 1);
+    }
+
+    public void started(long bookerId, long ownerId) {
+        add(bookerId, ownerId, Counter.FUTURE, -1);
+        add(bookerId, ownerId, Counter.CURRENT, 1);
+    }
+
+    public void ended(long bookerId, long ownerId) {
+        add(bookerId, ownerId, Counter.CURRENT, -1);
+        add(bookerId, ownerId, Counter.PAST, 1);
+    }
+
+    private void add(long bookerId, long ownerId, Counter counter, int delta) {
+        bookers.computeIfAbsent(bookerId, id -> new Counters()).add(counter, delta);
+        owners.computeIfAbsent(ownerId, id -> new Counters()).add(counter, delta);
+    }
+
+    private Map<Long, Counters> load(List<BookingCount> counts) {
+        Map<Long, Counters> loaded = new ConcurrentHashMap<>();
+        for (BookingCount count : counts) {
+            Counters counters = loaded.computeIfAbsent(count.getUserId(), id -> new Counters());
+            counters.add(Counter.ALL, count.getTotal());
+            counters.add(Counter.of(count.getStatus()), count.getTotal());
+            counters.add(Counter.FUTURE, count.getFutureCount());
+            counters.add(Counter.CURRENT, count.getCurrentCount());
+            counters.add(Counter.PAST, count.getPastCount());
+        }
+        return loaded;
+    }
+
+    private BookingSummaryDto toDto(Counters counters) {
+        if (counters == null) {
+            return new BookingSummaryDto();
+        }
+        return BookingSummaryDto.builder()
+                .all(counters.get(Counter.ALL))
+                .current(counters.get(Counter.CURRENT))
+                .past(counters.get(Counter.PAST))
+                .future(counters.get(Counter.FUTURE))
+                .waiting(counters.get(Counter.WAITING))
+                .approved(counters.get(Counter.APPROVED))
+                .rejected(counters.get(Counter.REJECTED))
+                .expired(counters.get(Counter.EXPIRED))
+                .build();
+    }
+
+    private enum Counter {
+        ALL, CURRENT, PAST, FUTURE, WAITING, APPROVED, REJECTED, EXPIRED;
+
+        static Counter of(Status status) {
+            return valueOf(status.name());
+        }
+    }
+
+    private static class Counters {
+        private final AtomicLongArray values = new AtomicLongArray(Counter.values().length);
+
+        void add(Counter counter, long delta) {
+            values.addAndGet(counter.ordinal(), delta);
+        }
+
+        long get(Counter counter) {
+            return values.get(counter.ordinal());
+        }
+    }
+}
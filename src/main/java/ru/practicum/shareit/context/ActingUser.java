@@ -0,0 +1,17 @@
+package ru.practicum.shareit.context;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Параметр метода контроллера, в который подставляется пользователь из заголовка X-Sharer-User-Id.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(PARAMETER)
+public @interface ActingUser {
+}
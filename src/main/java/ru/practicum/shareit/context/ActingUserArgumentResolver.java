@@ -0,0 +1,46 @@
+package ru.practicum.shareit.context;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+/**
+ * Подставляет в параметры с {@link ActingUser} пользователя из заголовка X-Sharer-User-Id.
+ * Пользователь проверяется через {@link UserService#validateUserDto(long)}, который запоминает его
+ * в {@link RequestIdentityMap}, поэтому проверки в сервисах того же запроса базу уже не трогают.
+ */
+public class ActingUserArgumentResolver implements HandlerMethodArgumentResolver {
+    public static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final UserService userService;
+
+    public ActingUserArgumentResolver(UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(ActingUser.class) && User.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public User resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        String header = webRequest.getHeader(USER_HEADER);
+        if (header == null || header.isBlank()) {
+            throw new BadRequestException("Не указан заголовок " + USER_HEADER);
+        }
+        long userId;
+        try {
+            userId = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Некорректное значение " + USER_HEADER + ": " + header);
+        }
+        return userService.validateUserDto(userId);
+    }
+}
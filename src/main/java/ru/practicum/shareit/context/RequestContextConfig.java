@@ -0,0 +1,34 @@
+package ru.practicum.shareit.context;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.List;
+
+@Configuration
+public class RequestContextConfig implements WebMvcConfigurer {
+    private final UserService userService;
+
+    public RequestContextConfig(UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new ActingUserArgumentResolver(userService));
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestIdentityFilter> requestIdentityFilter() {
+        FilterRegistrationBean<RequestIdentityFilter> registration =
+                new FilterRegistrationBean<>(new RequestIdentityFilter());
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
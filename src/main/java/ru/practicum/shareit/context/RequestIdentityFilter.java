@@ -0,0 +1,26 @@
+package ru.practicum.shareit.context;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * Открывает {@link RequestIdentityMap} на время запроса и закрывает ее по завершении.
+ */
+public class RequestIdentityFilter extends OncePerRequestFilter {
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        request.setAttribute(RequestIdentityMap.ATTRIBUTE, new HashMap<>());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            request.removeAttribute(RequestIdentityMap.ATTRIBUTE);
+        }
+    }
+}
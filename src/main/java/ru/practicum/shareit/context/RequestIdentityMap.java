@@ -0,0 +1,51 @@
+package ru.practicum.shareit.context;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Карта идентичности на время одного HTTP-запроса: сущность, найденная по ID, при повторном
+ * обращении в том же запросе берется из карты без похода в кэш и базу. Карту открывает
+ * {@link RequestIdentityFilter}; вне запроса (планировщик, тесты сервисов) загрузка идет напрямую.
+ */
+@Component
+public class RequestIdentityMap {
+    static final String ATTRIBUTE = RequestIdentityMap.class.getName();
+
+    public <T> T get(Class<T> type, long id, LongFunction<T> loader) {
+        Map<Class<?>, Map<Long, Object>> entities = current();
+        if (entities == null) {
+            return loader.apply(id);
+        }
+        Map<Long, Object> byId = entities.computeIfAbsent(type, key -> new HashMap<>());
+        Object entity = byId.get(id);
+        if (entity == null) {
+            entity = loader.apply(id);
+            if (entity != null) {
+                byId.put(id, entity);
+            }
+        }
+        return type.cast(entity);
+    }
+
+    public void evict(Class<?> type, long id) {
+        Map<Class<?>, Map<Long, Object>> entities = current();
+        if (entities != null && entities.containsKey(type)) {
+            entities.get(type).remove(id);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Class<?>, Map<Long, Object>> current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return (Map<Class<?>, Map<Long, Object>>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+}
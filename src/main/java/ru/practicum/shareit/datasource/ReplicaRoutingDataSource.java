@@ -0,0 +1,34 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Отправляет read-only транзакции на реплики (по кругу), все остальное — на основную базу.
+ * Должен быть обернут в LazyConnectionDataSourceProxy: признак read-only выставляется
+ * уже после того, как менеджер транзакций запросил соединение.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+
+    private final int replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(int replicas) {
+        this.replicas = replicas;
+    }
+
+    static String replica(int index) {
+        return "replica-" + index;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas == 0 || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return replica(Math.floorMod(next.getAndIncrement(), replicas));
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.etag;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.InternalServerErrorException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+
+import java.util.zip.CRC32;
+
+/**
+ * ETag имеет вид "версия-crc", где версия берется из @Version сущности, а crc считается по JSON ответа:
+ * в представление вещи и брони входят связанные данные, которые меняются без изменения версии.
+ * If-Match сравнивается только по версии, а If-None-Match для GET проверяет Spring MVC по всему тегу.
+ */
+@Component
+public class EntityTags {
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    private final ObjectMapper objectMapper;
+
+    public EntityTags(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public <T> ResponseEntity<T> ok(T body, Long version) {
+        return ResponseEntity.ok().eTag(tag(body, version)).body(body);
+    }
+
+    public Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.split(",")[0].trim();
+        if (tag.startsWith(WEAK_PREFIX)) {
+            tag = tag.substring(WEAK_PREFIX.length());
+        }
+        tag = tag.replace("\"", "");
+        int separator = tag.indexOf('-');
+        try {
+            return Long.parseLong(separator < 0 ? tag : tag.substring(0, separator));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("Некорректное значение If-Match: " + ifMatch);
+        }
+    }
+
+    String tag(Object body, Long version) {
+        CRC32 crc = new CRC32();
+        try {
+            crc.update(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new InternalServerErrorException(e.getMessage());
+        }
+        return "\"" + version + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+}
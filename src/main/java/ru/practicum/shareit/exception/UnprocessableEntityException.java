@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class UnprocessableEntityException extends RuntimeException {
+    public UnprocessableEntityException(String m) {
+        super(m);
+    }
+}
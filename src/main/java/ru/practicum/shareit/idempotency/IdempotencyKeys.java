@@ -0,0 +1,153 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.InternalServerErrorException;
+import ru.practicum.shareit.exception.UnprocessableEntityException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Ответы POST-запросов по заголовку Idempotency-Key. Первый запрос с ключом выполняется,
+ * его ответ сохраняется и возвращается повторам; повтор, пришедший во время выполнения,
+ * ждет того же результата. Ошибки не сохраняются, чтобы клиент мог повторить запрос.
+ * Ключ привязан к SHA-256 тела запроса: повтор с тем же ключом и другим телом отклоняется с 422.
+ * Записи живут ttl и вытесняются в порядке добавления при превышении capacity.
+ */
+@Component
+public class IdempotencyKeys {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final long ttl;
+
+    public IdempotencyKeys(ObjectMapper objectMapper,
+                           @Value("${shareit.idempotency.capacity:10000}") int capacity,
+                           @Value("${shareit.idempotency.ttl-ms:86400000}") long ttl) {
+        this.objectMapper = objectMapper;
+        this.capacity = capacity;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Выполняет action один раз для пары (scope, key). Без ключа просто выполняет action.
+     */
+    public <T> ResponseEntity<T> execute(String key, String scope, Object request, Supplier<T> action) {
+        if (key == null) {
+            return ResponseEntity.ok(action.get());
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Некорректное значение " + HEADER + ": " + key);
+        }
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+        String id = scope + ":" + key;
+        Entry created = new Entry(id, now, fingerprint(request));
+        Entry existing = entries.putIfAbsent(id, created);
+        while (existing != null && existing.expired(now)) {
+            entries.remove(id, existing);
+            existing = entries.putIfAbsent(id, created);
+        }
+        if (existing != null) {
+            if (!MessageDigest.isEqual(existing.fingerprint, created.fingerprint)) {
+                throw new UnprocessableEntityException(
+                        String.format("Ключ %s уже использован с другим телом запроса", key));
+            }
+            return replay(existing);
+        }
+        order.add(created);
+        trim();
+        try {
+            T body = action.get();
+            created.result.complete(body);
+            return ResponseEntity.ok(body);
+        } catch (Throwable e) {
+            entries.remove(id, created);
+            created.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(Entry entry) {
+        try {
+            return ResponseEntity.ok()
+                    .header(REPLAYED_HEADER, Boolean.TRUE.toString())
+                    .body((T) entry.result.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private byte[] fingerprint(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new InternalServerErrorException(e.getMessage());
+        }
+    }
+
+    private void evictExpired(long now) {
+        Entry head = order.peek();
+        while (head != null && head.expired(now)) {
+            if (order.remove(head)) {
+                entries.remove(head.id, head);
+            }
+            head = order.peek();
+        }
+    }
+
+    private void trim() {
+        while (entries.size() > capacity) {
+            Entry oldest = order.poll();
+            if (oldest == null) {
+                return;
+            }
+            entries.remove(oldest.id, oldest);
+        }
+    }
+
+    private class Entry {
+        private final String id;
+        private final long created;
+        private final byte[] fingerprint;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Entry(String id, long created, byte[] fingerprint) {
+            this.id = id;
+            this.created = created;
+            this.fingerprint = fingerprint;
+        }
+
+        boolean expired(long now) {
+            return now - created >= ttl;
+        }
+    }
+}
@@ -2,95 +2,114 @@ package ru.practicum.shareit.item;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.context.ActingUser;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.idempotency.IdempotencyKeys;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
 
 import javax.validation.Valid;
 import java.util.Collection;
-import java.util.Optional;
 
 @Slf4j
 @RestController
 @RequestMapping("/items")
 public class ItemController {
     private final ItemService itemService;
+    private final EntityTags entityTags;
+    private final IdempotencyKeys idempotencyKeys;
 
     @Autowired
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, EntityTags entityTags, IdempotencyKeys idempotencyKeys) {
         this.itemService = itemService;
+        this.entityTags = entityTags;
+        this.idempotencyKeys = idempotencyKeys;
     }
 
     @PostMapping
-    public ResponseEntity<ItemDto> createItem(@RequestHeader("X-Sharer-User-Id") long userId,
-                                              @Valid @RequestBody ItemCreatedDto item) {
-        log.info("Получен запрос POST на добавление предмета пользователем с ID: {}", userId);
-        ItemDto itemDto = itemService.createItem(userId, item);
-        log.info("Предмет с ID: {} успешно добавлен пользователем с ID: {}", itemDto.getId(), userId);
-        return new ResponseEntity<>(itemDto, HttpStatus.OK);
+    public ResponseEntity<ItemDto> createItem(@ActingUser User user,
+                                              @Valid @RequestBody ItemCreatedDto item,
+                                              @RequestHeader(value = IdempotencyKeys.HEADER, required = false)
+                                              String idempotencyKey) {
+        log.info("Получен запрос POST на добавление предмета пользователем с ID: {}", user.getId());
+        ResponseEntity<ItemDto> response = idempotencyKeys.execute(idempotencyKey, "items:" + user.getId(), item,
+                () -> itemService.createItem(user.getId(), item));
+        log.info("Предмет с ID: {} успешно добавлен пользователем с ID: {}", response.getBody().getId(), user.getId());
+        return response;
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<ItemDto> updateItem(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ResponseEntity<ItemDto> updateItem(@ActingUser User user,
                                               @RequestBody ItemUpdatedDto item,
-                                              @PathVariable(value = "itemId") long itemId) {
-        log.info("Получен запрос PATCH на обновление данных предмета пользователем с ID: {}", userId);
-        ItemDto itemDto = itemService.updateItem(userId, itemId, item);
-        log.info("Данные предмета с ID: {} успешно обновлены пользователем с ID: {}", itemId, userId);
-        return new ResponseEntity<>(itemDto, HttpStatus.OK);
+                                              @PathVariable(value = "itemId") long itemId,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                              String ifMatch) {
+        log.info("Получен запрос PATCH на обновление данных предмета пользователем с ID: {}", user.getId());
+        ItemDto itemDto = itemService.updateItem(user.getId(), itemId, item, entityTags.expectedVersion(ifMatch));
+        log.info("Данные предмета с ID: {} успешно обновлены пользователем с ID: {}", itemId, user.getId());
+        return entityTags.ok(itemDto, itemDto.getVersion());
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<ItemDto> getItemById(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ResponseEntity<ItemDto> getItemById(@ActingUser User user,
                                                @PathVariable(value = "itemId") long itemId) {
-        log.info("Получен запрос GET на вывод предмета с ID: {} пользователя с ID: {}", itemId, userId);
-        ItemDto itemDto = itemService.getItemById(itemId, userId);
-        log.info("Вывод предмета с ID: {} пользователя с ID: {}", itemDto.getId(), userId);
-        return new ResponseEntity<>(itemDto, HttpStatus.OK);
+        log.info("Получен запрос GET на вывод предмета с ID: {} пользователя с ID: {}", itemId, user.getId());
+        ItemDto itemDto = itemService.getItemById(itemId, user.getId());
+        log.info("Вывод предмета с ID: {} пользователя с ID: {}", itemDto.getId(), user.getId());
+        return entityTags.ok(itemDto, itemDto.getVersion());
     }
 
     @GetMapping
-    public ResponseEntity<Collection<ItemDto>> getItems(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ResponseEntity<Collection<ItemDto>> getItems(@ActingUser User user,
                                                         @RequestParam(value = "from", defaultValue = "0") Integer start,
                                                         @RequestParam(value = "size", defaultValue = "10") Integer size) {
-        log.info("Получен запрос GET на вывод всех предметов пользователя с ID: {}", userId);
-        log.info("Вывод всех предметов пользователя с ID: {}", userId);
-        return new ResponseEntity<>(itemService.getItems(userId, start, size), HttpStatus.OK);
+        log.info("Получен запрос GET на вывод всех предметов пользователя с ID: {}", user.getId());
+        log.info("Вывод всех предметов пользователя с ID: {}", user.getId());
+        return new ResponseEntity<>(itemService.getItems(user.getId(), start, size), HttpStatus.OK);
     }
 
     @DeleteMapping("/{itemId}")
-    public ResponseEntity<ItemDto> deleteItem(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ResponseEntity<ItemDto> deleteItem(@ActingUser User user,
                                               @PathVariable(value = "itemId") long itemId) {
         log.info("Получен запрос DELETE на удаление предмета пользователя с ID: {} " +
-                "пользователя с ID: {}", itemId, userId);
-        ItemDto itemDto = itemService.deleteItem(userId, itemId);
-        log.info("Предмет c ID: {} пользователя с ID: {} успешно удален!", itemDto.getId(), userId);
+                "пользователя с ID: {}", itemId, user.getId());
+        ItemDto itemDto = itemService.deleteItem(user.getId(), itemId);
+        log.info("Предмет c ID: {} пользователя с ID: {} успешно удален!", itemDto.getId(), user.getId());
         return new ResponseEntity<>(itemDto, HttpStatus.OK);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Collection<ItemDto>> searchItemByText(@RequestParam Optional<String> text,
-                                                                @RequestHeader("X-Sharer-User-Id") Optional<Long> userId,
-                                                                @RequestParam(value = "from", defaultValue = "0") Integer start,
-                                                                @RequestParam(value = "size", defaultValue = "10") Integer size) {
-        if (text.isPresent() && userId.isPresent()) {
-            log.info("Получен запрос GET на получение предметов по результатам поиска: {}", text);
-            log.info("Вывод предметов вывод предметов связанных с {}", text);
-            return new ResponseEntity<>(itemService.searchItemByName(text.get(), userId.get(), start, size),
-                    HttpStatus.OK);
+    public ResponseEntity<Collection<ItemDto>> searchItemByText(
+            @RequestParam(required = false) String text,
+            @ActingUser User user,
+            @RequestParam(value = "from", defaultValue = "0") Integer start,
+            @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        if (text == null) {
+            throw new BadRequestException("Не указан параметр text");
         }
-        throw new IllegalArgumentException("Ошибка!");
+        log.info("Получен запрос GET на получение предметов по результатам поиска: {}", text);
+        log.info("Вывод предметов вывод предметов связанных с {}", text);
+        return new ResponseEntity<>(itemService.searchItemByName(text, user.getId(), start, size), HttpStatus.OK);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<CommentDto> addComment(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ResponseEntity<CommentDto> addComment(@ActingUser User user,
                                                  @PathVariable(value = "itemId") long itemId,
-                                                 @Valid @RequestBody CommentCreatedDto commentCreatedDto) {
-        log.info("Получен запрос POST на добовление комментария вещи с ID: {} пользователем с ID: {}", itemId, userId);
-        CommentDto commentDto = itemService.addComment(commentCreatedDto, itemId, userId);
-        log.info("Комментарий с ID: {} успешно добавлен!", commentDto.getId());
-        return new ResponseEntity<>(commentDto, HttpStatus.OK);
+                                                 @Valid @RequestBody CommentCreatedDto commentCreatedDto,
+                                                 @RequestHeader(value = IdempotencyKeys.HEADER, required = false)
+                                                 String idempotencyKey) {
+        log.info("Получен запрос POST на добовление комментария вещи с ID: {} пользователем с ID: {}", itemId,
+                user.getId());
+        ResponseEntity<CommentDto> response = idempotencyKeys.execute(idempotencyKey,
+                "items/" + itemId + "/comment:" + user.getId(), commentCreatedDto,
+                () -> itemService.addComment(commentCreatedDto, itemId, user.getId()));
+        log.info("Комментарий с ID: {} успешно добавлен!", response.getBody().getId());
+        return response;
     }
 }
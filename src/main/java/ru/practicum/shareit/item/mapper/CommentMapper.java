@@ -7,6 +7,7 @@ import ru.practicum.shareit.item.model.Comment;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -30,4 +31,9 @@ public class CommentMapper {
     public List<CommentDto> transformCommentsListToCommentsDtoList(List<Comment> comments) {
         return comments.stream().map(this::transformCommentToCommentDto).collect(Collectors.toList());
     }
+
+    public Map<Long, List<CommentDto>> transformCommentsListToCommentsDtoByItemId(List<Comment> comments) {
+        return comments.stream().collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                Collectors.mapping(this::transformCommentToCommentDto, Collectors.toList())));
+    }
 }
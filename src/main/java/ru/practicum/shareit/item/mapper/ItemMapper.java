@@ -18,6 +18,7 @@ public class ItemMapper {
                 .description(item.getDescription())
                 .available(item.getAvailable())
                 .requestId(item.getItemRequest() == null ? null : item.getItemRequest().getId())
+                .version(item.getVersion())
                 .build();
     }
 
@@ -16,16 +16,21 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Entity
 @Table(name = "comments")
+@NamedEntityGraph(name = Comment.WITH_AUTHOR, attributeNodes = @NamedAttributeNode("author"))
 @Generated
 public class Comment {
+    public static final String WITH_AUTHOR = "Comment.withAuthor";
+    public static final String SEQUENCE = "comments_seq";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = Comment.SEQUENCE)
+    @SequenceGenerator(name = Comment.SEQUENCE, sequenceName = Comment.SEQUENCE, allocationSize = 50)
     private Long id;
     private String text;
-    @ManyToOne()
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private Item item;
-    @ManyToOne()
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private User author;
     @Column(name = "time_created")
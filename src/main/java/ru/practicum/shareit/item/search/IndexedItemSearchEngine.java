@@ -0,0 +1,99 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+@Slf4j
+public abstract class IndexedItemSearchEngine implements ItemSearchEngine {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ItemStorage itemStorage;
+
+    protected IndexedItemSearchEngine(ItemStorage itemStorage) {
+        this.itemStorage = itemStorage;
+    }
+
+    /**
+     * Читает вещи страницами по ID (keyset), чтобы удаление или вставка во время чтения
+     * не сдвигала страницы и не теряла вещи.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            long lastId = 0;
+            List<Item> page;
+            do {
+                page = itemStorage.findAllByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                page.forEach(this::add);
+                if (!page.isEmpty()) {
+                    lastId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == REBUILD_PAGE_SIZE);
+            log.info("Индекс поиска вещей {} построен. Количество вещей: {}", getClass().getSimpleName(), size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Item> search(String text, Pageable pageable) {
+        List<Long> itemIds = findIds(text);
+        if (pageable.getOffset() >= itemIds.size()) {
+            return List.of();
+        }
+        int from = (int) pageable.getOffset();
+        List<Long> pageIds = itemIds.subList(from, Math.min(from + pageable.getPageSize(), itemIds.size()));
+        Map<Long, Item> itemsById = itemStorage.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+        return pageIds.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void index(Item item) {
+        lock.writeLock().lock();
+        try {
+            removeById(item.getId());
+            add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long itemId) {
+        lock.writeLock().lock();
+        try {
+            removeById(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public abstract List<Long> findIds(String text);
+
+    protected abstract void add(Item item);
+
+    protected abstract void removeById(Long itemId);
+
+    protected abstract void clear();
+
+    protected abstract int size();
+}
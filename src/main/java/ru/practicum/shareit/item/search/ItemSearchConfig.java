@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.item.storage.ItemPageableStorage;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+@Slf4j
+@Configuration
+public class ItemSearchConfig {
+    @Bean
+    public ItemSearchEngine itemSearchEngine(@Value("${shareit.item.search.engine:TRIGRAM}") SearchEngineMode mode,
+                                             ItemStorage itemStorage, ItemPageableStorage itemPageableStorage) {
+        log.info("Режим поиска вещей: {}", mode);
+        switch (mode) {
+            case LIKE:
+                return new JpaItemSearchEngine(itemPageableStorage);
+            case TOKEN:
+                return new ItemTokenIndex(itemStorage);
+            default:
+                return new ItemTrigramIndex(itemStorage);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.util.*;
+
+/**
+ * Инвертированный индекс по словам названия и описания вещей.
+ * Кандидаты отбираются по префиксам слов запроса, затем проверяется вхождение всей строки запроса,
+ * как в прежнем поиске через LIKE.
+ */
+public class ItemTokenIndex extends IndexedItemSearchEngine {
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<Long, IndexedItem> indexedItems = new HashMap<>();
+
+    public ItemTokenIndex(ItemStorage itemStorage) {
+        super(itemStorage);
+    }
+
+    @Override
+    public List<Long> findIds(String text) {
+        String query = TextTokenizer.normalize(text).trim();
+        List<String> tokens = TextTokenizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = null;
+            for (String token : tokens) {
+                Set<Long> matches = new HashSet<>();
+                for (Set<Long> ids : postings.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                    matches.addAll(ids);
+                }
+                if (candidates == null) {
+                    candidates = matches;
+                } else {
+                    candidates.retainAll(matches);
+                }
+                if (candidates.isEmpty()) {
+                    return List.of();
+                }
+            }
+            List<Long> result = new ArrayList<>();
+            for (Long id : candidates) {
+                if (indexedItems.get(id).matches(query)) {
+                    result.add(id);
+                }
+            }
+            Collections.sort(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected void add(Item item) {
+        IndexedItem indexedItem = new IndexedItem(item);
+        indexedItems.put(item.getId(), indexedItem);
+        for (String token : indexedItem.tokens) {
+            postings.computeIfAbsent(token, key -> new HashSet<>()).add(item.getId());
+        }
+    }
+
+    @Override
+    protected void removeById(Long itemId) {
+        IndexedItem indexedItem = indexedItems.remove(itemId);
+        if (indexedItem == null) {
+            return;
+        }
+        for (String token : indexedItem.tokens) {
+            Set<Long> ids = postings.get(token);
+            ids.remove(itemId);
+            if (ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    @Override
+    protected void clear() {
+        postings.clear();
+        indexedItems.clear();
+    }
+
+    @Override
+    protected int size() {
+        return indexedItems.size();
+    }
+
+    private static final class IndexedItem {
+        private final String name;
+        private final String description;
+        private final boolean available;
+        private final Set<String> tokens = new HashSet<>();
+
+        private IndexedItem(Item item) {
+            name = TextTokenizer.normalize(item.getName());
+            description = TextTokenizer.normalize(item.getDescription());
+            available = Boolean.TRUE.equals(item.getAvailable());
+            tokens.addAll(TextTokenizer.tokenize(name));
+            tokens.addAll(TextTokenizer.tokenize(description));
+        }
+
+        private boolean matches(String query) {
+            return available && (name.contains(query) || description.contains(query));
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.util.*;
+
+/**
+ * Индекс по символьным триграммам названия и описания вещей. Находит вещи, в которых каждое слово запроса
+ * встречается как подстрока. Выдача ранжируется: сначала совпадения в названии, затем более плотные совпадения
+ * слов запроса и более короткие поля.
+ */
+public class ItemTrigramIndex extends IndexedItemSearchEngine {
+    private static final int GRAM_LENGTH = 3;
+    private static final Comparator<Match> RANKING = Comparator.comparingInt((Match match) -> -match.nameHits)
+            .thenComparingInt(match -> match.span)
+            .thenComparingInt(match -> match.length)
+            .thenComparingLong(match -> match.id);
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, IndexedItem> indexedItems = new HashMap<>();
+
+    public ItemTrigramIndex(ItemStorage itemStorage) {
+        super(itemStorage);
+    }
+
+    @Override
+    public List<Long> findIds(String text) {
+        List<String> terms = TextTokenizer.tokenize(text);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Match> matches = new ArrayList<>();
+            for (long id : findCandidates(terms)) {
+                Match match = indexedItems.get(id).match(id, terms);
+                if (match != null) {
+                    matches.add(match);
+                }
+            }
+            matches.sort(RANKING);
+            List<Long> result = new ArrayList<>(matches.size());
+            for (Match match : matches) {
+                result.add(match.id);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected void add(Item item) {
+        IndexedItem indexedItem = new IndexedItem(item);
+        indexedItems.put(item.getId(), indexedItem);
+        for (String gram : indexedItem.grams()) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(item.getId());
+        }
+    }
+
+    @Override
+    protected void removeById(Long itemId) {
+        IndexedItem indexedItem = indexedItems.remove(itemId);
+        if (indexedItem == null) {
+            return;
+        }
+        for (String gram : indexedItem.grams()) {
+            PostingList ids = postings.get(gram);
+            ids.remove(itemId);
+            if (ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    @Override
+    protected void clear() {
+        postings.clear();
+        indexedItems.clear();
+    }
+
+    @Override
+    protected int size() {
+        return indexedItems.size();
+    }
+
+    private long[] findCandidates(List<String> terms) {
+        List<PostingList> lists = new ArrayList<>();
+        String longestShortTerm = "";
+        for (String term : terms) {
+            if (term.length() < GRAM_LENGTH) {
+                if (term.length() > longestShortTerm.length()) {
+                    longestShortTerm = term;
+                }
+                continue;
+            }
+            for (String gram : grams(term)) {
+                PostingList ids = postings.get(gram);
+                if (ids == null) {
+                    return new long[0];
+                }
+                lists.add(ids);
+            }
+        }
+        if (lists.isEmpty()) {
+            return findShortTermCandidates(longestShortTerm);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        long[] candidates = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = lists.get(i).retainAll(candidates);
+        }
+        return candidates;
+    }
+
+    private long[] findShortTermCandidates(String term) {
+        TreeSet<Long> candidates = new TreeSet<>();
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            if (entry.getKey().contains(term)) {
+                for (long id : entry.getValue().toArray()) {
+                    candidates.add(id);
+                }
+            }
+        }
+        return candidates.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        if (text.isEmpty()) {
+            return grams;
+        }
+        if (text.length() < GRAM_LENGTH) {
+            grams.add(text);
+            return grams;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static int span(String field, List<String> terms) {
+        int start = Integer.MAX_VALUE;
+        int end = 0;
+        for (String term : terms) {
+            int position = field.indexOf(term);
+            start = Math.min(start, position);
+            end = Math.max(end, position + term.length());
+        }
+        return end - start;
+    }
+
+    private static final class IndexedItem {
+        private final String name;
+        private final String description;
+        private final boolean available;
+
+        private IndexedItem(Item item) {
+            name = TextTokenizer.normalize(item.getName());
+            description = TextTokenizer.normalize(item.getDescription());
+            available = Boolean.TRUE.equals(item.getAvailable());
+        }
+
+        private Set<String> grams() {
+            Set<String> grams = ItemTrigramIndex.grams(name);
+            grams.addAll(ItemTrigramIndex.grams(description));
+            return grams;
+        }
+
+        private Match match(long id, List<String> terms) {
+            if (!available) {
+                return null;
+            }
+            int nameHits = 0;
+            boolean allInDescription = true;
+            for (String term : terms) {
+                boolean inName = name.contains(term);
+                boolean inDescription = description.contains(term);
+                if (!inName && !inDescription) {
+                    return null;
+                }
+                if (inName) {
+                    nameHits++;
+                }
+                allInDescription &= inDescription;
+            }
+            if (nameHits == terms.size()) {
+                return new Match(id, nameHits, span(name, terms), name.length());
+            }
+            if (allInDescription) {
+                return new Match(id, nameHits, span(description, terms), description.length());
+            }
+            return new Match(id, nameHits, Integer.MAX_VALUE, name.length() + description.length());
+        }
+    }
+
+    private static final class Match {
+        private final long id;
+        private final int nameHits;
+        private final int span;
+        private final int length;
+
+        private Match(long id, int nameHits, int span, int length) {
+            this.id = id;
+            this.nameHits = nameHits;
+            this.span = span;
+            this.length = length;
+        }
+    }
+}
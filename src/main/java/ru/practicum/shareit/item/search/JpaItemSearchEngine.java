@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemPageableStorage;
+
+import java.util.List;
+
+public class JpaItemSearchEngine implements ItemSearchEngine {
+    private final ItemPageableStorage itemPageableStorage;
+
+    public JpaItemSearchEngine(ItemPageableStorage itemPageableStorage) {
+        this.itemPageableStorage = itemPageableStorage;
+    }
+
+    @Override
+    public List<Item> search(String text, Pageable pageable) {
+        return itemPageableStorage.findAllByNameOrDescriptionContainingIgnoreCaseAndAvailableTrue(text, text, pageable);
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+
+    @Override
+    public void remove(long itemId) {
+    }
+}
@@ -4,11 +4,12 @@ import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.model.Item;
 
 import java.util.Collection;
+import java.util.Map;
 
 public interface ItemService {
     ItemDto createItem(long userId, ItemCreatedDto itemCreatedDto);
 
-    ItemDto updateItem(long userId, long itemId, ItemUpdatedDto itemUpdatedDto);
+    ItemDto updateItem(long userId, long itemId, ItemUpdatedDto itemUpdatedDto, Long version);
 
     ItemDto getItemById(long itemId, long userId);
 
@@ -20,5 +21,7 @@ public interface ItemService {
 
     Item validateItemById(long id);
 
+    Map<Long, Item> getItemsByIds(Collection<Long> ids);
+
     CommentDto addComment(CommentCreatedDto commentCreatedDto, long itemId, long userId);
 }
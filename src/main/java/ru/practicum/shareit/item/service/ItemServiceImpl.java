@@ -8,23 +8,31 @@ import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.context.RequestIdentityMap;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.storage.CommentStorage;
 import ru.practicum.shareit.item.storage.ItemPageableStorage;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.feed.RequestFeed;
+import ru.practicum.shareit.request.matching.RequestMatchingEngine;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.RequestStorage;
+import ru.practicum.shareit.transaction.TransactionCallbacks;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
 
 @Service
 public class ItemServiceImpl implements ItemService {
@@ -37,10 +45,16 @@ public class ItemServiceImpl implements ItemService {
     private final ItemMapper mapper;
     private final RequestStorage requestStorage;
     private final ItemPageableStorage itemPageableStorage;
+    private final ItemSearchEngine itemSearchEngine;
+    private final RequestMatchingEngine requestMatchingEngine;
+    private final RequestFeed requestFeed;
+    private final RequestIdentityMap identityMap;
 
     public ItemServiceImpl(ItemStorage itemStorage, UserService userService, BookingStorage bookingStorage,
                            BookingMapper bookingMapper, CommentStorage commentStorage, CommentMapper commentMapper,
-                           ItemMapper mapper, RequestStorage requestStorage, ItemPageableStorage itemPageableStorage) {
+                           ItemMapper mapper, RequestStorage requestStorage, ItemPageableStorage itemPageableStorage,
+                           ItemSearchEngine itemSearchEngine, RequestMatchingEngine requestMatchingEngine,
+                           RequestFeed requestFeed, RequestIdentityMap identityMap) {
         this.itemStorage = itemStorage;
         this.userService = userService;
         this.bookingStorage = bookingStorage;
@@ -50,6 +64,10 @@ public class ItemServiceImpl implements ItemService {
         this.mapper = mapper;
         this.requestStorage = requestStorage;
         this.itemPageableStorage = itemPageableStorage;
+        this.itemSearchEngine = itemSearchEngine;
+        this.requestMatchingEngine = requestMatchingEngine;
+        this.requestFeed = requestFeed;
+        this.identityMap = identityMap;
     }
 
 
@@ -58,21 +76,32 @@ public class ItemServiceImpl implements ItemService {
     public ItemDto createItem(long userId, ItemCreatedDto itemCreatedDto) {
         Item item = mapper.transformItemCreatedDtoToItem(itemCreatedDto);
         item.setUser(userService.validateUserDto(userId));
-        ItemRequest itemRequest = itemCreatedDto.getRequestId() != null ?
-                requestStorage.findById(itemCreatedDto.getRequestId()).orElse(null) : null;
+        Long requestId = itemCreatedDto.getRequestId();
+        ItemRequest itemRequest = requestId != null ? requestStorage.findById(requestId).orElseThrow(() ->
+                new NotFoundException(String.format("Запрос с ID %d не найден", requestId))) : null;
         item.setItemRequest(itemRequest);
-        return mapper.transformItemToItemDto(itemStorage.save(item));
+        Item savedItem = itemStorage.save(item);
+        TransactionCallbacks.afterCommit(() -> {
+            itemSearchEngine.index(savedItem);
+            requestMatchingEngine.indexItem(savedItem);
+        });
+        evictRequest(savedItem);
+        return mapper.transformItemToItemDto(savedItem);
     }
 
     @Override
     @Transactional
-    public ItemDto updateItem(long userId, long itemId, ItemUpdatedDto itemUpdatedDto) {
+    public ItemDto updateItem(long userId, long itemId, ItemUpdatedDto itemUpdatedDto, Long version) {
         Item itemFromDb = validateItemById(itemId);
         Item item = mapper.transformItemUpdatedDtoToItem(itemUpdatedDto);
         if (!itemFromDb.getUser().getId().equals(userId)) {
             throw new NotFoundException(
                     String.format("Пользователь с ID: %d не владеет вещью с ID: %d", userId, itemId));
         }
+        if (version != null && !version.equals(itemFromDb.getVersion())) {
+            throw new PreconditionFailedException(
+                    String.format("Вещь с ID %d была изменена, текущая версия %d", itemId, itemFromDb.getVersion()));
+        }
         if (item.getAvailable() != null) {
             itemFromDb.setAvailable(item.getAvailable());
         }
@@ -82,11 +111,17 @@ public class ItemServiceImpl implements ItemService {
         if (item.getName() != null) {
             itemFromDb.setName(item.getName());
         }
-        itemStorage.save(itemFromDb);
+        itemStorage.saveAndFlush(itemFromDb);
+        TransactionCallbacks.afterCommit(() -> {
+            itemSearchEngine.index(itemFromDb);
+            requestMatchingEngine.indexItem(itemFromDb);
+        });
+        evictRequest(itemFromDb);
         return mapper.transformItemToItemDto(itemFromDb);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemDto getItemById(long itemId, long userId) {
         userService.validateUserDto(userId);
         Item item = validateItemById(itemId);
@@ -94,6 +129,7 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<ItemDto> getItems(long userId, Integer start, Integer size) {
         if (start < 0) {
             throw new BadRequestException("Значение from не может быть отрицательным");
@@ -104,11 +140,7 @@ public class ItemServiceImpl implements ItemService {
         Pageable pageable = PageRequest.of(start / size, size);
         userService.validateUserDto(userId);
         List<Item> items = itemPageableStorage.findAllByUserId(userId, pageable);
-        List<ItemDto> itemDtos = new ArrayList<>();
-        for (Item item : items) {
-            itemDtos.add(getLastAndNextBookings(item, userId));
-        }
-        return itemDtos;
+        return getLastAndNextBookings(items, userId);
     }
 
     @Override
@@ -116,10 +148,17 @@ public class ItemServiceImpl implements ItemService {
     public ItemDto deleteItem(long userId, long itemId) {
         Item item = validateItemById(itemId);
         itemStorage.deleteById(itemId);
+        identityMap.evict(Item.class, itemId);
+        TransactionCallbacks.afterCommit(() -> {
+            itemSearchEngine.remove(itemId);
+            requestMatchingEngine.removeItem(itemId);
+        });
+        evictRequest(item);
         return mapper.transformItemToItemDto(item);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<ItemDto> searchItemByName(String text, long userId, Integer start, Integer size) {
         if (start < 0) {
             throw new BadRequestException("Значение from не может быть отрицательным");
@@ -132,15 +171,29 @@ public class ItemServiceImpl implements ItemService {
         if (text.isBlank()) {
             return List.of();
         }
-        return mapper.transformListItemToListItemDto(
-                itemPageableStorage.findAllByNameOrDescriptionContainingIgnoreCaseAndAvailableTrue(
-                        text, text, pageable));
+        List<Item> items = itemSearchEngine.search(text, pageable);
+        Map<Long, List<CommentDto>> commentsByItemId = getCommentsByItemId(items);
+        List<ItemDto> itemDtos = new ArrayList<>();
+        for (Item item : items) {
+            ItemDto itemDto = mapper.transformItemToItemDto(item);
+            itemDto.setComments(commentsByItemId.getOrDefault(item.getId(), List.of()));
+            itemDtos.add(itemDto);
+        }
+        return itemDtos;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Item validateItemById(long id) {
-        return itemStorage.findById(id).orElseThrow(() ->
-                new NotFoundException(String.format("Вещь с ID %d не найдена", id)));
+        return identityMap.get(Item.class, id, itemId -> itemStorage.findById(itemId).orElseThrow(() ->
+                new NotFoundException(String.format("Вещь с ID %d не найдена", itemId))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Item> getItemsByIds(Collection<Long> ids) {
+        return itemStorage.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
     }
 
     @Override
@@ -168,29 +221,59 @@ public class ItemServiceImpl implements ItemService {
     }
 
     protected ItemDto getLastAndNextBookings(Item item, long userId) {
-        List<Booking> lastBookings = bookingStorage.findAllByItemIdAndEndBeforeOrderByEndDesc(
-                item.getId(), LocalDateTime.now());
-        List<Booking> nextBookings = bookingStorage.findAllByItemIdAndStartAfter(item.getId(), LocalDateTime.now());
-        ItemDto itemDto = mapper.transformItemToItemDto(item);
-        if (item.getUser().getId().equals(userId)) {
-            if (!lastBookings.isEmpty() && !nextBookings.isEmpty()) {
-                Booking lastBooking = lastBookings.get(0);
-                Booking nextBooking = nextBookings.get(nextBookings.size() - 1);
+        return getLastAndNextBookings(List.of(item), userId).get(0);
+    }
+
+    protected List<ItemDto> getLastAndNextBookings(List<Item> items, long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ownItemIds = items.stream()
+                .filter(item -> item.getUser().getId().equals(userId))
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        Map<Long, Booking> lastByItemId = ownItemIds.isEmpty() ? Map.of() :
+                byItemId(bookingStorage.findLastByItemIdIn(ownItemIds, now));
+        Map<Long, Booking> nextByItemId = ownItemIds.isEmpty() ? Map.of() :
+                byItemId(bookingStorage.findNextByItemIdIn(ownItemIds, now));
+        List<Long> withoutPairIds = ownItemIds.stream()
+                .filter(id -> !lastByItemId.containsKey(id) || !nextByItemId.containsKey(id))
+                .collect(Collectors.toList());
+        Map<Long, Booking> activeByItemId = withoutPairIds.isEmpty() ? Map.of() :
+                byItemId(bookingStorage.findActiveByItemIdIn(withoutPairIds, now));
+        Map<Long, List<CommentDto>> commentsByItemId = getCommentsByItemId(items);
+        List<ItemDto> itemDtos = new ArrayList<>();
+        for (Item item : items) {
+            ItemDto itemDto = mapper.transformItemToItemDto(item);
+            Booking lastBooking = lastByItemId.get(item.getId());
+            Booking nextBooking = nextByItemId.get(item.getId());
+            if (lastBooking != null && nextBooking != null) {
                 itemDto.setLastBooking(bookingMapper.transformBookingToBookingItemDto(lastBooking));
                 itemDto.setNextBooking(bookingMapper.transformBookingToBookingItemDto(nextBooking));
-            } else {
-                List<Booking> activeBookings =
-                        bookingStorage.findAllByEndAfterAndStartBeforeAndItemUserIdOrderByStartDesc(
-                                LocalDateTime.now(), LocalDateTime.now(), userId);
-                for (Booking booking : activeBookings) {
-                    if (booking.getItem().getId().equals(item.getId())) {
-                        itemDto.setLastBooking(bookingMapper.transformBookingToBookingItemDto(booking));
-                    }
-                }
+            } else if (activeByItemId.containsKey(item.getId())) {
+                itemDto.setLastBooking(bookingMapper.transformBookingToBookingItemDto(
+                        activeByItemId.get(item.getId())));
             }
+            itemDto.setComments(commentsByItemId.getOrDefault(item.getId(), List.of()));
+            itemDtos.add(itemDto);
+        }
+        return itemDtos;
+    }
+
+    private Map<Long, Booking> byItemId(List<Booking> bookings) {
+        return bookings.stream().collect(Collectors.toMap(booking -> booking.getItem().getId(), booking -> booking,
+                BinaryOperator.maxBy(Comparator.comparing(Booking::getId))));
+    }
+
+    private Map<Long, List<CommentDto>> getCommentsByItemId(List<Item> items) {
+        if (items.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        return commentMapper.transformCommentsListToCommentsDtoByItemId(commentStorage.findAllByItemIdIn(itemIds));
+    }
+
+    private void evictRequest(Item item) {
+        if (item.getItemRequest() != null) {
+            requestFeed.evict(item.getItemRequest().getId());
         }
-        itemDto.setComments(commentMapper.transformCommentsListToCommentsDtoList(
-                commentStorage.findAllByItemId(item.getId())));
-        return itemDto;
     }
 }
@@ -1,13 +1,16 @@
 package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
 
 import java.util.List;
 
 public interface ItemPageableStorage extends PagingAndSortingRepository<Item, Integer> {
-    List<Item> findAllByUserId(Long userId, Pageable pageable);
+    @Query("select i from Item i where i.user.id = :userId")
+    List<Item> findAllByUserId(@Param("userId") Long userId, Pageable pageable);
 
     List<Item> findAllByNameOrDescriptionContainingIgnoreCaseAndAvailableTrue(
             String name, String description, Pageable pageable);
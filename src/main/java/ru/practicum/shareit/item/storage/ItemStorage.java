@@ -1,14 +1,30 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemStorage extends JpaRepository<Item, Long> {
-    List<Item> findAllByUserId(long userId);
+    //Постраничное чтение по возрастанию ID для построения индексов
+    List<Item> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select i from Item i where i.user.id = :userId")
+    List<Item> findAllByUserId(@Param("userId") long userId);
 
     List<Item> findAllByNameOrDescriptionContainingIgnoreCaseAndAvailableTrue(String name, String description);
 
-    List<Item> findAllByItemRequestId(Long requestId);
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select i from Item i where i.itemRequest.id = :requestId")
+    List<Item> findAllByItemRequestId(@Param("requestId") Long requestId);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select i from Item i where i.itemRequest.id in :requestIds")
+    List<Item> findAllByItemRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
 }
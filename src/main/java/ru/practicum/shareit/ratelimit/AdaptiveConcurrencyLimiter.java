@@ -0,0 +1,99 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Общий лимит одновременно выполняемых запросов, подстраиваемый по задержке (градиентный алгоритм).
+ * Пока время ответа близко к минимальному, лимит растет на корень из себя; когда оно превышает
+ * минимальное больше чем в tolerance раз, лимит уменьшается пропорционально. Минимальное время
+ * раз в probeInterval замеров сбрасывается на текущее, чтобы лимит следовал за сменой нагрузки на базу.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final int probeInterval;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile double limit;
+    private long minRtt;
+    private long samples;
+
+    public AdaptiveConcurrencyLimiter(RateLimitProperties.Concurrency properties) {
+        minLimit = Math.max(1, properties.getMinLimit());
+        maxLimit = Math.max(minLimit, properties.getMaxLimit());
+        tolerance = Math.max(1.0, properties.getTolerance());
+        probeInterval = Math.max(1, properties.getProbeInterval());
+        limit = Math.min(maxLimit, Math.max(minLimit, properties.getInitialLimit()));
+    }
+
+    /**
+     * Занимает место. Возвращает число выполняемых запросов вместе с этим или -1, если лимит исчерпан.
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Освобождает место, занятое {@link #tryAcquire()}, и пересчитывает лимит по времени ответа.
+     */
+    public void release(int inFlightAtStart, long rtt) {
+        inFlight.decrementAndGet();
+        if (rtt > 0) {
+            update(inFlightAtStart, rtt);
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    private synchronized void update(int inFlightAtStart, long rtt) {
+        samples++;
+        if (minRtt == 0 || rtt < minRtt || samples % probeInterval == 0) {
+            minRtt = rtt;
+        }
+        double current = limit;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * minRtt / rtt));
+        double next = current * gradient + Math.sqrt(current);
+        if (inFlightAtStart < current / 2) {
+            // Лимит не использован и наполовину: рост по такому замеру ничего не говорит о запасе базы
+            next = Math.min(next, current);
+        }
+        next = current * (1 - SMOOTHING) + next * SMOOTHING;
+        limit = Math.min(maxLimit, Math.max(minLimit, next));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AdaptiveConcurrencyLimiter{limit=%d, inFlight=%d, accepted=%d, rejected=%d}",
+                limit(), inFlight(), accepted(), rejected());
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.ratelimit;
+
+/**
+ * Классы эндпоинтов, для каждого из которых у пользователя свое ведро токенов.
+ */
+public enum EndpointClass {
+    /** Поиск и выборки по чужим данным: /items/search, /requests/all, /requests/matches. */
+    SEARCH,
+    /** Списки своих данных: GET /bookings, /bookings/owner, /items, /requests, /users. */
+    LIST,
+    /** Чтение одной сущности и сводок. */
+    READ,
+    /** POST, PATCH, PUT и DELETE. */
+    WRITE;
+
+    public static EndpointClass of(String method, String path) {
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        String trimmed = path.endsWith("/") && path.length() > 1 ? path.substring(0, path.length() - 1) : path;
+        if (trimmed.endsWith("/search") || trimmed.equals("/requests/all") || trimmed.equals("/requests/matches")) {
+            return SEARCH;
+        }
+        if (trimmed.lastIndexOf('/') == 0 || trimmed.equals("/bookings/owner")) {
+            return LIST;
+        }
+        return READ;
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сначала проверяет ведро токенов пользователя для класса эндпоинта, затем общий лимит
+ * одновременных запросов. В обоих случаях отказ — 429 с Retry-After в секундах.
+ * Запросы без X-Sharer-User-Id делят ведро по адресу клиента.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    public static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final String H2_CONSOLE = "/h2-console";
+
+    private final RateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                           ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return path(request).startsWith(H2_CONSOLE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = EndpointClass.of(request.getMethod(), path(request));
+        String user = user(request);
+        long wait = rateLimiter.tryAcquire(user, endpointClass, System.nanoTime());
+        if (wait > 0) {
+            log.debug("Пользователь {} превысил лимит запросов {}", user, endpointClass);
+            reject(response, wait, "Слишком много запросов, повторите позже");
+            return;
+        }
+        if (concurrencyLimiter == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        int inFlight = concurrencyLimiter.tryAcquire();
+        if (inFlight < 0) {
+            log.debug("Запрос {} {} отклонен: выполняется {} запросов при лимите {}", request.getMethod(),
+                    path(request), concurrencyLimiter.inFlight(), concurrencyLimiter.limit());
+            reject(response, TimeUnit.SECONDS.toNanos(1), "Сервер перегружен, повторите позже");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            concurrencyLimiter.release(inFlight, System.nanoTime() - start);
+        }
+    }
+
+    private void reject(HttpServletResponse response, long wait, String message) throws IOException {
+        long seconds = Math.max(1, (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", message));
+    }
+
+    private String user(HttpServletRequest request) {
+        String user = request.getHeader(USER_HEADER);
+        return user != null && !user.isBlank() ? user.trim() : "ip:" + request.getRemoteAddr();
+    }
+
+    private String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
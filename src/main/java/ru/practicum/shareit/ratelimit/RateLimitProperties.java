@@ -0,0 +1,58 @@
+package ru.practicum.shareit.ratelimit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit.ratelimit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private int maxBuckets = 100_000;
+    private Map<EndpointClass, Limit> limits = defaultLimits();
+    private Concurrency concurrency = new Concurrency();
+
+    public Limit limit(EndpointClass endpointClass) {
+        Limit limit = limits.get(endpointClass);
+        return limit != null ? limit : defaultLimits().get(endpointClass);
+    }
+
+    private static Map<EndpointClass, Limit> defaultLimits() {
+        Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+        limits.put(EndpointClass.SEARCH, new Limit(10, 20));
+        limits.put(EndpointClass.LIST, new Limit(20, 40));
+        limits.put(EndpointClass.READ, new Limit(50, 100));
+        limits.put(EndpointClass.WRITE, new Limit(20, 40));
+        return limits;
+    }
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private double perSecond;
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(double perSecond, int burst) {
+            this.perSecond = perSecond;
+            this.burst = burst;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Concurrency {
+        private boolean enabled = true;
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        private double tolerance = 2.0;
+        private int probeInterval = 1000;
+    }
+}
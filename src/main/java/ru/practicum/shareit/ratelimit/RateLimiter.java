@@ -0,0 +1,89 @@
+package ru.practicum.shareit.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ведра токенов по пользователю и классу эндпоинта. Когда ведер становится больше maxBuckets,
+ * удаляются полные: такое ведро ничем не отличается от нового, поэтому лимиты не сбрасываются.
+ * Очистка идет не чаще раза в секунду, чтобы поток новых ключей не превращал каждый запрос в обход всех ведер.
+ */
+@Slf4j
+public class RateLimiter {
+    private static final long SWEEP_INTERVAL = 1_000_000_000L;
+
+    private final RateLimitProperties properties;
+    private final Map<EndpointClass, ConcurrentHashMap<String, TokenBucket>> buckets =
+            new EnumMap<>(EndpointClass.class);
+    private final AtomicLong lastSweep = new AtomicLong(Long.MIN_VALUE / 2);
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            buckets.put(endpointClass, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Возвращает 0, если запрос пропущен, иначе время в наносекундах, через которое стоит повторить.
+     */
+    public long tryAcquire(String user, EndpointClass endpointClass, long now) {
+        ConcurrentHashMap<String, TokenBucket> classBuckets = buckets.get(endpointClass);
+        TokenBucket bucket = classBuckets.get(user);
+        if (bucket == null) {
+            if (size() >= properties.getMaxBuckets()) {
+                evictFull(now);
+            }
+            RateLimitProperties.Limit limit = properties.limit(endpointClass);
+            bucket = classBuckets.computeIfAbsent(user,
+                    key -> new TokenBucket(limit.getPerSecond(), limit.getBurst(), now));
+        }
+        long wait = bucket.tryAcquire(now);
+        if (wait == 0) {
+            accepted.increment();
+        } else {
+            rejected.increment();
+        }
+        return wait;
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, TokenBucket> classBuckets : buckets.values()) {
+            size += classBuckets.size();
+        }
+        return size;
+    }
+
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    private void evictFull(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        int before = size();
+        for (ConcurrentHashMap<String, TokenBucket> classBuckets : buckets.values()) {
+            classBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+        log.debug("Удалено полных ведер токенов: {}", before - size());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RateLimiter{buckets=%d, accepted=%d, rejected=%d}", size(), accepted(), rejected());
+    }
+}
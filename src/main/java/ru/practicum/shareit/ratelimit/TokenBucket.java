@@ -0,0 +1,41 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket без блокировок в форме GCRA: вместо числа токенов хранится одно значение —
+ * момент, к которому ведро снова будет полным. Запрос проходит, если этот момент отстоит
+ * от текущего не больше чем на burst интервалов, и сдвигает его на один интервал.
+ */
+class TokenBucket {
+    private final long interval;
+    private final long tolerance;
+    private final AtomicLong fullAt;
+
+    TokenBucket(double perSecond, int burst, long now) {
+        interval = Math.max(1, (long) (1_000_000_000L / perSecond));
+        tolerance = interval * Math.max(1, burst);
+        fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Берет токен. Возвращает 0, если токен взят, иначе время в наносекундах до появления токена.
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    boolean isFull(long now) {
+        return fullAt.get() <= now;
+    }
+}
@@ -2,13 +2,19 @@ package ru.practicum.shareit.request.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.context.ActingUser;
+import ru.practicum.shareit.idempotency.IdempotencyKeys;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.user.model.User;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -18,47 +24,74 @@ import java.util.List;
 @Validated
 @RequestMapping(path = "/requests")
 public class ItemRequestController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final RequestService service;
+    private final IdempotencyKeys idempotencyKeys;
 
     @Autowired
-    public ItemRequestController(RequestService requestService) {
+    public ItemRequestController(RequestService requestService, IdempotencyKeys idempotencyKeys) {
         this.service = requestService;
+        this.idempotencyKeys = idempotencyKeys;
     }
 
     @PostMapping
     public ResponseEntity<ItemRequestDto> createRequest(@Valid @RequestBody ItemRequestCreateDto itemRequestCreateDto,
-                                                        @RequestHeader("X-Sharer-User-Id") Long userId) {
+                                                        @ActingUser User user,
+                                                        @RequestHeader(value = IdempotencyKeys.HEADER, required = false)
+                                                        String idempotencyKey) {
         log.info("Получен запрос POST на дабовление запроса");
-        ItemRequestDto itemRequestDto = service.createRequest(itemRequestCreateDto, userId);
-        log.info("Запрос с ID: {} успешно добавлен!", itemRequestDto.getId());
-        return new ResponseEntity<>(itemRequestDto, HttpStatus.OK);
+        ResponseEntity<ItemRequestDto> response = idempotencyKeys.execute(idempotencyKey, "requests:" + user.getId(),
+                itemRequestCreateDto,
+                () -> service.createRequest(itemRequestCreateDto, user.getId()));
+        log.info("Запрос с ID: {} успешно добавлен!", response.getBody().getId());
+        return response;
     }
 
     @GetMapping
-    public ResponseEntity<List<ItemRequestDto>> getRequests(@RequestHeader("X-Sharer-User-Id") Long userId) {
+    public ResponseEntity<List<ItemRequestDto>> getRequests(@ActingUser User user) {
         log.info("Получен запрос GET на получение всех запросов");
-        List<ItemRequestDto> requesterList = service.getRequests(userId);
+        List<ItemRequestDto> requesterList = service.getRequests(user.getId());
         log.info("Вывод всех запросов. Количество: {}", requesterList.size());
         return new ResponseEntity<>(requesterList, HttpStatus.OK);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<ItemRequestDto>> getRequestByParameter(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public ResponseEntity<List<ItemRequestDto>> getRequestByParameter(@ActingUser User user,
                                                                       @RequestParam(value = "from", defaultValue = "0")
                                                                       Integer start,
                                                                       @RequestParam(value = "size", defaultValue = "10")
-                                                                      Integer size) {
+                                                                      Integer size,
+                                                                      @RequestParam(value = "cursor", required = false)
+                                                                      String cursor) {
         log.info("Получен запрос GET на получение запроса по параметру");
-        List<ItemRequestDto> requesterList = service.getRequestsByParameter(userId, start, size);
+        if (cursor != null) {
+            ItemRequestPageDto page = service.getRequestsPage(user.getId(), cursor, size);
+            HttpHeaders headers = new HttpHeaders();
+            if (page.getNextCursor() != null) {
+                headers.set(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            log.info("Вывод всех запросов после курсора. Количество: {}", page.getRequests().size());
+            return new ResponseEntity<>(page.getRequests(), headers, HttpStatus.OK);
+        }
+        List<ItemRequestDto> requesterList = service.getRequestsByParameter(user.getId(), start, size);
         log.info("Вывод всех запрос с параметром. From: {}, size: {}", start, size);
         return new ResponseEntity<>(requesterList, HttpStatus.OK);
     }
 
+    @GetMapping("/matches")
+    public ResponseEntity<List<RequestMatchDto>> getMatches(@ActingUser User user) {
+        log.info("Получен запрос GET на получение запросов, подходящих вещам владельца");
+        List<RequestMatchDto> matches = service.getMatches(user.getId());
+        log.info("Вывод подходящих запросов. Количество: {}", matches.size());
+        return new ResponseEntity<>(matches, HttpStatus.OK);
+    }
+
     @GetMapping("/{requestId}")
-    public ResponseEntity<ItemRequestDto> getRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public ResponseEntity<ItemRequestDto> getRequestById(@ActingUser User user,
                                                          @PathVariable Long requestId) {
         log.info("Получен запрос GET на получение запроса по ID");
-        ItemRequestDto requestById = service.getRequestById(userId, requestId);
+        ItemRequestDto requestById = service.getRequestById(user.getId(), requestId);
         log.info("Вывод запрос с ID: {}", requestId);
         return new ResponseEntity<>(requestById, HttpStatus.OK);
     }
@@ -0,0 +1,275 @@
+package ru.practicum.shareit.request.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.RequestCursor;
+import ru.practicum.shareit.request.storage.RequestStorage;
+import ru.practicum.shareit.transaction.TransactionCallbacks;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Кольцевой буфер последних запросов вместе с их вещами. Лента чужих запросов
+ * читается отсюда, каждый пользователь отфильтровывает свои запросы при чтении.
+ * Если буфера не хватает, {@link #find} возвращает null и читать нужно из базы.
+ */
+@Slf4j
+@Component
+public class RequestFeed {
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator.comparing((Entry entry) -> entry.created)
+            .thenComparingLong(entry -> entry.id)
+            .reversed();
+
+    private final RequestStorage storage;
+    private final ItemRequestMapper mapper;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Entry[] ring;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private int head;
+    private int count;
+    private boolean complete;
+
+    public RequestFeed(RequestStorage storage, ItemRequestMapper mapper,
+                       @Value("${shareit.request.feed.size:1024}") int capacity) {
+        this.storage = storage;
+        this.mapper = mapper;
+        this.ring = new Entry[Math.max(1, capacity)];
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<ItemRequest> newest = storage.findAll(PageRequest.of(0, ring.length,
+                Sort.by("created").descending().and(Sort.by("id").descending()))).getContent();
+        List<ItemRequestDto> dtos = mapper.transformItemRequestListToItemRequestDtoList(newest);
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(ring, null);
+            entries.clear();
+            head = 0;
+            count = 0;
+            complete = newest.size() < ring.length;
+            for (int i = newest.size() - 1; i >= 0; i--) {
+                push(new Entry(newest.get(i), dtos.get(i)));
+            }
+            log.info("Лента запросов построена. Количество запросов: {}", count);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void add(ItemRequest itemRequest, ItemRequestDto itemRequestDto) {
+        lock.writeLock().lock();
+        try {
+            if (!entries.containsKey(itemRequest.getId())) {
+                push(new Entry(itemRequest, itemRequestDto));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Помечает запрос устаревшим: его вещи будут перечитаны при следующем чтении.
+     * Повторяется после завершения транзакции, чтобы не закэшировать незакоммиченное состояние.
+     */
+    public void evict(long requestId) {
+        markStale(requestId);
+        TransactionCallbacks.afterCompletion(() -> markStale(requestId));
+    }
+
+    /**
+     * Удаляет запросы пользователя (в базе они удаляются каскадно) после коммита транзакции.
+     */
+    public void removeRequester(long requesterId) {
+        TransactionCallbacks.afterCommit(() -> dropRequester(requesterId));
+    }
+
+    private void dropRequester(long requesterId) {
+        lock.writeLock().lock();
+        try {
+            List<Entry> kept = new ArrayList<>(count);
+            for (int i = count - 1; i >= 0; i--) {
+                Entry entry = at(i);
+                if (!Objects.equals(entry.requesterId, requesterId)) {
+                    kept.add(entry);
+                }
+            }
+            if (kept.size() == count) {
+                return;
+            }
+            Arrays.fill(ring, null);
+            entries.clear();
+            head = 0;
+            count = 0;
+            kept.forEach(this::push);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Страница чужих для userId запросов, идущих после курсора, с пропуском offset записей.
+     * Возвращает null, если буфер не содержит всей запрошенной страницы.
+     */
+    public List<ItemRequestDto> find(long userId, RequestCursor after, long offset, int size) {
+        List<Entry> page = new ArrayList<>(size);
+        lock.readLock().lock();
+        try {
+            long skipped = 0;
+            for (int i = 0; i < count && page.size() < size; i++) {
+                Entry entry = at(i);
+                if (Objects.equals(entry.requesterId, userId)
+                        || after != null && !after.isBefore(entry.created, entry.id)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                page.add(entry);
+            }
+            if (page.size() < size && !complete) {
+                return null;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        refresh(page);
+        List<ItemRequestDto> result = new ArrayList<>(page.size());
+        for (Entry entry : page) {
+            ItemRequestDto dto = entry.dto;
+            if (dto == null) {
+                return null;
+            }
+            result.add(dto);
+        }
+        return result;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Перечитывает устаревшие записи страницы. Прочитанное сохраняется, только если запись
+     * не помечали устаревшей во время чтения, иначе оно могло прочитать данные до изменения.
+     */
+    private void refresh(List<Entry> page) {
+        Map<Long, Long> staleGenerations = new LinkedHashMap<>();
+        for (Entry entry : page) {
+            long generation = entry.staleGeneration();
+            if (generation >= 0) {
+                staleGenerations.put(entry.id, generation);
+            }
+        }
+        if (staleGenerations.isEmpty()) {
+            return;
+        }
+        List<ItemRequestDto> dtos = mapper.transformItemRequestListToItemRequestDtoList(
+                storage.findAllById(new ArrayList<>(staleGenerations.keySet())));
+        for (ItemRequestDto dto : dtos) {
+            for (Entry entry : page) {
+                if (entry.id == dto.getId()) {
+                    entry.install(staleGenerations.get(entry.id), dto);
+                }
+            }
+        }
+    }
+
+    private void markStale(long requestId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(requestId);
+            if (entry != null) {
+                entry.markStale();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Кладет запись в голову буфера и опускает ее на место, если она старше соседей
+     * (параллельные запросы могут сохраниться не в порядке created). Самая старая запись вытесняется.
+     */
+    private void push(Entry entry) {
+        if (count == ring.length) {
+            Entry oldest = at(count - 1);
+            if (NEWEST_FIRST.compare(entry, oldest) > 0) {
+                complete = false;
+                return;
+            }
+            entries.remove(oldest.id);
+            complete = false;
+            count--;
+        }
+        head = (head - 1 + ring.length) % ring.length;
+        ring[head] = entry;
+        count++;
+        entries.put(entry.id, entry);
+        for (int i = 0; i + 1 < count && NEWEST_FIRST.compare(at(i), at(i + 1)) > 0; i++) {
+            int current = index(i);
+            int next = index(i + 1);
+            Entry swap = ring[current];
+            ring[current] = ring[next];
+            ring[next] = swap;
+        }
+    }
+
+    private Entry at(int position) {
+        return ring[index(position)];
+    }
+
+    private int index(int position) {
+        return (head + position) % ring.length;
+    }
+
+    private static class Entry {
+        private final long id;
+        private final Long requesterId;
+        private final LocalDateTime created;
+        private volatile ItemRequestDto dto;
+        private long generation;
+
+        private Entry(ItemRequest itemRequest, ItemRequestDto dto) {
+            this.id = itemRequest.getId();
+            this.requesterId = itemRequest.getRequester() == null ? null : itemRequest.getRequester().getId();
+            this.created = itemRequest.getCreated();
+            this.dto = dto;
+        }
+
+        private synchronized void markStale() {
+            generation++;
+            dto = null;
+        }
+
+        /**
+         * Поколение устаревшей записи или -1, если запись актуальна.
+         */
+        private synchronized long staleGeneration() {
+            return dto == null ? generation : -1;
+        }
+
+        private synchronized void install(long expectedGeneration, ItemRequestDto loaded) {
+            if (generation == expectedGeneration) {
+                dto = loaded;
+            }
+        }
+    }
+}
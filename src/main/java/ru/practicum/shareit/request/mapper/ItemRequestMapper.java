@@ -7,11 +7,14 @@ import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.storage.ItemStorage;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.matching.RequestMatch;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -42,9 +45,37 @@ public class ItemRequestMapper {
                 .build();
     }
 
+    public List<ItemRequestDto> transformItemRequestListToItemRequestDtoList(List<ItemRequest> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return List.of();
+        }
+        List<Long> requestIds = itemRequests.stream().map(ItemRequest::getId).collect(Collectors.toList());
+        Map<Long, List<ItemDto>> itemsByRequestId = itemStorage.findAllByItemRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(item -> item.getItemRequest().getId(),
+                        Collectors.mapping(itemMapper::transformItemToItemDto, Collectors.toList())));
+        return itemRequests.stream()
+                .map(itemRequest -> ItemRequestDto.builder()
+                        .id(itemRequest.getId())
+                        .description(itemRequest.getDescription())
+                        .created(itemRequest.getCreated())
+                        .items(itemsByRequestId.getOrDefault(itemRequest.getId(), List.of()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
     public List<ItemDto> getItemsDto(Long requestId) {
         return itemStorage.findAllByItemRequestId(requestId).stream()
                 .map(itemMapper::transformItemToItemDto)
                 .collect(Collectors.toList());
     }
+
+    public RequestMatchDto transformRequestMatchToRequestMatchDto(RequestMatch requestMatch) {
+        return RequestMatchDto.builder()
+                .requestId(requestMatch.getRequestId())
+                .description(requestMatch.getDescription())
+                .created(requestMatch.getCreated())
+                .score(requestMatch.getScore())
+                .itemIds(requestMatch.getItemIds())
+                .build();
+    }
 }
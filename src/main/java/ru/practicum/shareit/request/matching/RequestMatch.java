@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.matching;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class RequestMatch {
+    private final long requestId;
+    private final String description;
+    private final LocalDateTime created;
+    private final int score;
+    private final List<Long> itemIds;
+}
@@ -0,0 +1,294 @@
+package ru.practicum.shareit.request.matching;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.TextTokenizer;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.RequestStorage;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Сопоставляет запросы вещей с доступными вещами по общим словам.
+ * Оба индекса обновляются при создании запроса и при изменении вещи,
+ * поэтому владельцу не нужно перебирать все запросы, чтобы найти подходящие.
+ */
+@Slf4j
+@Component
+public class RequestMatchingEngine {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final int MIN_TOKEN_LENGTH = 3;
+    private static final int STEM_LENGTH = 4;
+    private static final int STEM_SUFFIX = 2;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ItemStorage itemStorage;
+    private final RequestStorage requestStorage;
+    private final Map<String, Set<Long>> itemsByStem = new HashMap<>();
+    private final Map<Long, IndexedItem> items = new HashMap<>();
+    private final Map<Long, Set<Long>> itemsByOwner = new HashMap<>();
+    private final Map<String, Set<Long>> requestsByStem = new HashMap<>();
+    private final Map<Long, IndexedRequest> requests = new HashMap<>();
+
+    public RequestMatchingEngine(ItemStorage itemStorage, RequestStorage requestStorage) {
+        this.itemStorage = itemStorage;
+        this.requestStorage = requestStorage;
+    }
+
+    /**
+     * Вещи и запросы читаются страницами по ID (keyset): страницы не сдвигаются при удалении строк.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            itemsByStem.clear();
+            items.clear();
+            itemsByOwner.clear();
+            requestsByStem.clear();
+            requests.clear();
+            long lastItemId = 0;
+            List<Item> itemPage;
+            do {
+                itemPage = itemStorage.findAllByIdGreaterThanOrderByIdAsc(lastItemId,
+                        PageRequest.of(0, REBUILD_PAGE_SIZE));
+                itemPage.forEach(this::putItem);
+                if (!itemPage.isEmpty()) {
+                    lastItemId = itemPage.get(itemPage.size() - 1).getId();
+                }
+            } while (itemPage.size() == REBUILD_PAGE_SIZE);
+            long lastRequestId = 0;
+            List<ItemRequest> requestPage;
+            do {
+                requestPage = requestStorage.findAllByIdGreaterThanOrderByIdAsc(lastRequestId,
+                        PageRequest.of(0, REBUILD_PAGE_SIZE));
+                requestPage.forEach(this::putRequest);
+                if (!requestPage.isEmpty()) {
+                    lastRequestId = requestPage.get(requestPage.size() - 1).getId();
+                }
+            } while (requestPage.size() == REBUILD_PAGE_SIZE);
+            log.info("Индекс сопоставления запросов построен. Вещей: {}, запросов: {}", items.size(), requests.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Индексирует новый запрос и возвращает ID подходящих вещей, лучшие первыми.
+     */
+    public List<Long> addRequest(ItemRequest itemRequest) {
+        lock.writeLock().lock();
+        try {
+            IndexedRequest request = putRequest(itemRequest);
+            return request == null ? List.of() : rank(scoreItems(request));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Переиндексирует вещь и возвращает ID запросов, которым она подходит, лучшие первыми.
+     */
+    public List<Long> indexItem(Item item) {
+        lock.writeLock().lock();
+        try {
+            removeItemById(item.getId());
+            IndexedItem indexed = putItem(item);
+            return indexed == null ? List.of() : rank(scoreRequests(indexed));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeItem(long itemId) {
+        lock.writeLock().lock();
+        try {
+            removeItemById(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Убирает из индекса вещи и запросы удаленного пользователя.
+     */
+    public void removeOwner(long userId) {
+        lock.writeLock().lock();
+        try {
+            new ArrayList<>(itemsByOwner.getOrDefault(userId, Set.of())).forEach(this::removeItemById);
+            List<IndexedRequest> owned = requests.values().stream()
+                    .filter(request -> Objects.equals(request.requesterId, userId))
+                    .collect(Collectors.toList());
+            for (IndexedRequest request : owned) {
+                requests.remove(request.id);
+                request.stems.forEach(stem -> removeFrom(requestsByStem, stem, request.id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Запросы, которым подходят доступные вещи владельца. Сначала запросы с наибольшим
+     * числом общих слов, затем более новые.
+     */
+    public List<RequestMatch> findMatches(long ownerId) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Map<Long, Integer>> scoresByRequest = new HashMap<>();
+            for (Long itemId : itemsByOwner.getOrDefault(ownerId, Set.of())) {
+                scoreRequests(items.get(itemId)).forEach((requestId, score) ->
+                        scoresByRequest.computeIfAbsent(requestId, id -> new HashMap<>()).put(itemId, score));
+            }
+            return scoresByRequest.entrySet().stream()
+                    .map(entry -> {
+                        IndexedRequest request = requests.get(entry.getKey());
+                        int score = Collections.max(entry.getValue().values());
+                        return new RequestMatch(request.id, request.description, request.created, score,
+                                rank(entry.getValue()));
+                    })
+                    .sorted(Comparator.comparingInt(RequestMatch::getScore).reversed()
+                            .thenComparing(RequestMatch::getCreated, Comparator.nullsLast(Comparator.reverseOrder()))
+                            .thenComparing(RequestMatch::getRequestId, Comparator.reverseOrder()))
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private IndexedItem putItem(Item item) {
+        if (item.getId() == null || item.getUser() == null || !Boolean.TRUE.equals(item.getAvailable())) {
+            return null;
+        }
+        Set<String> stems = stems(item.getName(), item.getDescription());
+        if (stems.isEmpty()) {
+            return null;
+        }
+        IndexedItem indexed = new IndexedItem(item.getId(), item.getUser().getId(), stems);
+        items.put(indexed.id, indexed);
+        itemsByOwner.computeIfAbsent(indexed.ownerId, id -> new HashSet<>()).add(indexed.id);
+        stems.forEach(stem -> itemsByStem.computeIfAbsent(stem, s -> new HashSet<>()).add(indexed.id));
+        return indexed;
+    }
+
+    private void removeItemById(long itemId) {
+        IndexedItem indexed = items.remove(itemId);
+        if (indexed == null) {
+            return;
+        }
+        removeFrom(itemsByOwner, indexed.ownerId, itemId);
+        indexed.stems.forEach(stem -> removeFrom(itemsByStem, stem, itemId));
+    }
+
+    private IndexedRequest putRequest(ItemRequest itemRequest) {
+        Set<String> stems = stems(itemRequest.getDescription());
+        if (itemRequest.getId() == null || stems.isEmpty()) {
+            return null;
+        }
+        Long requesterId = itemRequest.getRequester() == null ? null : itemRequest.getRequester().getId();
+        IndexedRequest indexed = new IndexedRequest(itemRequest.getId(), requesterId,
+                itemRequest.getDescription(), itemRequest.getCreated(), stems);
+        requests.put(indexed.id, indexed);
+        stems.forEach(stem -> requestsByStem.computeIfAbsent(stem, s -> new HashSet<>()).add(indexed.id));
+        return indexed;
+    }
+
+    private Map<Long, Integer> scoreItems(IndexedRequest request) {
+        Map<Long, Integer> scores = new HashMap<>();
+        for (String stem : request.stems) {
+            for (Long itemId : itemsByStem.getOrDefault(stem, Set.of())) {
+                if (!Objects.equals(items.get(itemId).ownerId, request.requesterId)) {
+                    scores.merge(itemId, 1, Integer::sum);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private Map<Long, Integer> scoreRequests(IndexedItem item) {
+        Map<Long, Integer> scores = new HashMap<>();
+        for (String stem : item.stems) {
+            for (Long requestId : requestsByStem.getOrDefault(stem, Set.of())) {
+                if (!Objects.equals(requests.get(requestId).requesterId, item.ownerId)) {
+                    scores.merge(requestId, 1, Integer::sum);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static List<Long> rank(Map<Long, Integer> scores) {
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Long>> index, K key, long id) {
+        Set<Long> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    static Set<String> stems(String... texts) {
+        Set<String> stems = new HashSet<>();
+        for (String text : texts) {
+            for (String token : TextTokenizer.tokenize(text)) {
+                if (token.length() >= MIN_TOKEN_LENGTH) {
+                    stems.add(stem(token));
+                }
+            }
+        }
+        return stems;
+    }
+
+    /**
+     * Грубое отсечение окончания: "дрель" и "дрели" дают одну основу "дрел".
+     */
+    static String stem(String token) {
+        if (token.length() <= STEM_LENGTH) {
+            return token;
+        }
+        return token.substring(0, Math.max(STEM_LENGTH, token.length() - STEM_SUFFIX));
+    }
+
+    private static class IndexedItem {
+        private final long id;
+        private final Long ownerId;
+        private final Set<String> stems;
+
+        private IndexedItem(long id, Long ownerId, Set<String> stems) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.stems = stems;
+        }
+    }
+
+    private static class IndexedRequest {
+        private final long id;
+        private final Long requesterId;
+        private final String description;
+        private final LocalDateTime created;
+        private final Set<String> stems;
+
+        private IndexedRequest(long id, Long requesterId, String description, LocalDateTime created,
+                               Set<String> stems) {
+            this.id = id;
+            this.requesterId = requesterId;
+            this.description = description;
+            this.created = created;
+            this.stems = stems;
+        }
+    }
+}
@@ -1,31 +1,37 @@
 package ru.practicum.shareit.request.model;
 
 import lombok.*;
-import ru.practicum.shareit.item.model.Item;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Data
 @Builder
 @Entity
 @Table(name = "requests")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ItemRequest.CACHE_REGION)
 @NoArgsConstructor
 @AllArgsConstructor
 @Generated
 public class ItemRequest {
+    public static final String CACHE_REGION = "shareit.request";
+    public static final String SEQUENCE = "requests_seq";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ItemRequest.SEQUENCE)
+    @SequenceGenerator(name = ItemRequest.SEQUENCE, sequenceName = ItemRequest.SEQUENCE, allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private String description;
     @Column(nullable = false)
     private LocalDateTime created;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "requester_id", referencedColumnName = "id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User requester;
-    @Transient
-    private List<Item> items;
 }
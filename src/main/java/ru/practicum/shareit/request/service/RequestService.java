@@ -2,6 +2,8 @@ package ru.practicum.shareit.request.service;
 
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 
 import java.util.List;
@@ -13,7 +15,11 @@ public interface RequestService {
 
     List<ItemRequestDto> getRequestsByParameter(Long userId, Integer from, Integer size);
 
+    ItemRequestPageDto getRequestsPage(Long userId, String cursor, Integer size);
+
     ItemRequestDto getRequestById(Long userId, Long requestId);
 
     ItemRequest validateItemRequest(Long requestId);
+
+    List<RequestMatchDto> getMatches(Long ownerId);
 }
@@ -1,16 +1,23 @@
 package ru.practicum.shareit.request.service;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.feed.RequestFeed;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.matching.RequestMatchingEngine;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.OffsetPageRequest;
+import ru.practicum.shareit.request.storage.RequestCursor;
 import ru.practicum.shareit.request.storage.RequestStorage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
@@ -18,19 +25,25 @@ import ru.practicum.shareit.user.service.UserService;
 import java.util.List;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class RequestServiceImpl implements RequestService {
     private final RequestStorage storage;
     private final UserService userService;
     private final ItemRequestMapper itemRequestMapper;
+    private final RequestMatchingEngine matchingEngine;
+    private final RequestFeed requestFeed;
 
 
     @Autowired
     public RequestServiceImpl(RequestStorage storage, UserService userService,
-                              ItemRequestMapper itemRequestMapper) {
+                              ItemRequestMapper itemRequestMapper, RequestMatchingEngine matchingEngine,
+                              RequestFeed requestFeed) {
         this.storage = storage;
         this.userService = userService;
         this.itemRequestMapper = itemRequestMapper;
+        this.matchingEngine = matchingEngine;
+        this.requestFeed = requestFeed;
     }
 
     @Override
@@ -38,17 +51,23 @@ public class RequestServiceImpl implements RequestService {
         User user = userService.validateUserDto(userId);
         ItemRequest itemRequest =
                 itemRequestMapper.transformItemRequestCreateDtoToItemRequest(itemRequestCreateDto, user);
-        return itemRequestMapper.transformItemRequestToItemRequestDto(storage.save(itemRequest));
+        ItemRequest savedRequest = storage.save(itemRequest);
+        List<Long> candidates = matchingEngine.addRequest(savedRequest);
+        log.debug("Запросу с ID {} подходят вещи: {}", savedRequest.getId(), candidates);
+        ItemRequestDto itemRequestDto = itemRequestMapper.transformItemRequestToItemRequestDto(savedRequest);
+        requestFeed.add(savedRequest, itemRequestDto);
+        return itemRequestDto;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getRequests(Long userId) {
         userService.validateUserDto(userId);
-        return storage.findAllByRequesterId(userId).stream().map(itemRequestMapper::transformItemRequestToItemRequestDto)
-                .collect(Collectors.toList());
+        return itemRequestMapper.transformItemRequestListToItemRequestDtoList(storage.findAllByRequesterId(userId));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getRequestsByParameter(Long userId, Integer from, Integer size) {
         if (from < 0) {
             throw new BadRequestException("Значение from не может быть отрицательным");
@@ -57,20 +76,56 @@ public class RequestServiceImpl implements RequestService {
             throw new BadRequestException("Значение size не может быть меньше 10");
         }
         userService.validateUserDto(userId);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("created").descending());
-        return storage.findAllByRequesterIdNot(userId, pageable).stream()
-                .map(itemRequestMapper::transformItemRequestToItemRequestDto).collect(Collectors.toList());
+        List<ItemRequestDto> cached = requestFeed.find(userId, null, from, size);
+        if (cached != null) {
+            return cached;
+        }
+        return itemRequestMapper.transformItemRequestListToItemRequestDtoList(
+                storage.findAllByRequesterIdNotOrderByCreatedDescIdDesc(userId, OffsetPageRequest.of(from, size)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ItemRequestPageDto getRequestsPage(Long userId, String cursor, Integer size) {
+        if (size < 1) {
+            throw new BadRequestException("Значение size не может быть меньше 10");
+        }
+        RequestCursor after = RequestCursor.decode(cursor);
+        userService.validateUserDto(userId);
+        List<ItemRequestDto> requests = requestFeed.find(userId, after, 0, size);
+        if (requests == null) {
+            Pageable pageable = PageRequest.of(0, size);
+            requests = itemRequestMapper.transformItemRequestListToItemRequestDtoList(after == null
+                    ? storage.findAllByRequesterIdNotOrderByCreatedDescIdDesc(userId, pageable)
+                    : storage.findAllByRequesterIdNotAfter(userId, after.getCreated(), after.getId(), pageable));
+        }
+        String nextCursor = requests.size() == size ? RequestCursor.of(requests.get(size - 1)).encode() : null;
+        return ItemRequestPageDto.builder()
+                .requests(requests)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequestDto getRequestById(Long userId, Long requestId) {
         userService.validateUserDto(userId);
         return itemRequestMapper.transformItemRequestToItemRequestDto(validateItemRequest(requestId));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequest validateItemRequest(Long requestId) {
         return storage.findById(requestId).orElseThrow(() ->
                 new NotFoundException(String.format("Запрос с ID %d не найден", requestId)));
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RequestMatchDto> getMatches(Long ownerId) {
+        userService.validateUserDto(ownerId);
+        return matchingEngine.findMatches(ownerId).stream()
+                .map(itemRequestMapper::transformRequestMatchToRequestMatchDto)
+                .collect(Collectors.toList());
+    }
 }
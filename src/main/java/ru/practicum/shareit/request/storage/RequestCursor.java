@@ -0,0 +1,54 @@
+package ru.practicum.shareit.request.storage;
+
+import lombok.Getter;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+@Getter
+public class RequestCursor {
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime created;
+    private final Long id;
+
+    public RequestCursor(LocalDateTime created, Long id) {
+        this.created = created;
+        this.id = id;
+    }
+
+    public static RequestCursor of(ItemRequestDto itemRequestDto) {
+        return new RequestCursor(itemRequestDto.getCreated(), itemRequestDto.getId());
+    }
+
+    public static RequestCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return new RequestCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Некорректное значение cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((created + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Запрос с такими created и id идет в ленте после курсора (лента упорядочена по убыванию).
+     */
+    public boolean isBefore(LocalDateTime created, long id) {
+        int compare = created.compareTo(this.created);
+        return compare < 0 || compare == 0 && id < this.id;
+    }
+}
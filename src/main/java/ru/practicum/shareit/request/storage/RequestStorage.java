@@ -2,14 +2,33 @@ package ru.practicum.shareit.request.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface RequestStorage extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findAllByRequesterIdNot(Long requesterId, Pageable pageable);
+    //Постраничное чтение по возрастанию ID для построения индексов
+    List<ItemRequest> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 
-    List<ItemRequest> findAllByRequesterId(Long requesterId);
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select r from ItemRequest r where r.requester.id = :requesterId")
+    List<ItemRequest> findAllByRequesterId(@Param("requesterId") Long requesterId);
 
     ItemRequest findByIdAndRequesterId(Long id, Long requesterId);
+
+    List<ItemRequest> findAllByRequesterIdNotOrderByCreatedDescIdDesc(Long requesterId, Pageable pageable);
+
+    @Query("select r from ItemRequest r " +
+            "where r.requester.id <> :requesterId " +
+            "and (r.created < :created or (r.created = :created and r.id < :id)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findAllByRequesterIdNotAfter(@Param("requesterId") Long requesterId,
+                                                   @Param("created") LocalDateTime created,
+                                                   @Param("id") Long id,
+                                                   Pageable pageable);
 }
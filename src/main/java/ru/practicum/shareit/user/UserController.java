@@ -2,9 +2,11 @@ package ru.practicum.shareit.user;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.etag.EntityTags;
 import ru.practicum.shareit.user.dto.UserCreateDto;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserUpdatedDto;
@@ -19,10 +21,12 @@ import java.util.Collection;
 @RequestMapping(path = "/users")
 public class UserController {
     private final UserService userService;
+    private final EntityTags entityTags;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, EntityTags entityTags) {
         this.userService = userService;
+        this.entityTags = entityTags;
     }
 
     @PostMapping
@@ -35,11 +39,12 @@ public class UserController {
 
     @PatchMapping("/{userId}")
     public ResponseEntity<UserDto> updateUser(@Valid @RequestBody UserUpdatedDto userUpdatedDto,
-                                              @PathVariable(value = "userId") long userId) {
+                                              @PathVariable(value = "userId") long userId,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Получен запрос PATCH на обновление данных пользователя с ID: {}", userId);
-        UserDto userDto = userService.updateUser(userId, userUpdatedDto);
+        UserDto userDto = userService.updateUser(userId, userUpdatedDto, entityTags.expectedVersion(ifMatch));
         log.info("Данные пользователя с ID: {} успешно обновлены!", userDto.getId());
-        return new ResponseEntity<>(userDto, HttpStatus.OK);
+        return entityTags.ok(userDto, userDto.getVersion());
     }
 
     @GetMapping
@@ -54,7 +59,7 @@ public class UserController {
         log.info("Получен запрос GET на вывод пользователя с ID: {}", userId);
         UserDto userDto = userService.getUserById(userId);
         log.info("Вывод пользователя с ID: {}", userDto.getId());
-        return new ResponseEntity<>(userDto, HttpStatus.OK);
+        return entityTags.ok(userDto, userDto.getVersion());
     }
 
     @DeleteMapping("/{userId}")
@@ -13,6 +13,7 @@ public class UserMapper {
                 .id(user.getId())
                 .name(user.getName())
                 .email(user.getEmail())
+                .version(user.getVersion())
                 .build();
     }
 
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 
 @Builder
@@ -11,4 +12,6 @@ public class UserDto {
     private Long id;
     private String name;
     private String email;
+    @JsonIgnore
+    private Long version;
 }
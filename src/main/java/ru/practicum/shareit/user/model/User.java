@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.Generated;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -13,14 +15,22 @@ import javax.persistence.*;
 @NoArgsConstructor
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 @AllArgsConstructor
 @Generated
 public class User {
+    public static final String CACHE_REGION = "shareit.user";
+    public static final String SEQUENCE = "users_seq";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = User.SEQUENCE)
+    @SequenceGenerator(name = User.SEQUENCE, sequenceName = User.SEQUENCE, allocationSize = 50)
     private Long id;
     private String name;
     @Column(unique = true)
     private String email;
+    @Version
+    private Long version;
 }
 
@@ -12,7 +12,7 @@ public interface UserService {
 
     UserDto createUser(UserCreateDto user);
 
-    UserDto updateUser(long userId, UserUpdatedDto userUpdatedDto);
+    UserDto updateUser(long userId, UserUpdatedDto userUpdatedDto, Long version);
 
     UserDto removeUser(Long id);
 
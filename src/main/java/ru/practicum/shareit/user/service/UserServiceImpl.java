@@ -1,8 +1,16 @@
 package ru.practicum.shareit.user.service;
 
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.context.RequestIdentityMap;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+import ru.practicum.shareit.request.feed.RequestFeed;
+import ru.practicum.shareit.request.matching.RequestMatchingEngine;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.transaction.TransactionCallbacks;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.dto.UserCreateDto;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -10,6 +18,7 @@ import ru.practicum.shareit.user.dto.UserUpdatedDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -18,13 +27,24 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
     private final UserStorage userStorage;
     private final UserMapper mapper;
+    private final RequestFeed requestFeed;
+    private final RequestMatchingEngine requestMatchingEngine;
+    private final RequestIdentityMap identityMap;
+    private final EntityManagerFactory entityManagerFactory;
 
-    public UserServiceImpl(UserStorage userStorage, UserMapper mapper) {
+    public UserServiceImpl(UserStorage userStorage, UserMapper mapper, RequestFeed requestFeed,
+                           RequestMatchingEngine requestMatchingEngine, RequestIdentityMap identityMap,
+                           EntityManagerFactory entityManagerFactory) {
         this.userStorage = userStorage;
         this.mapper = mapper;
+        this.requestFeed = requestFeed;
+        this.requestMatchingEngine = requestMatchingEngine;
+        this.identityMap = identityMap;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<UserDto> getUsers() {
         return userStorage.findAll().stream()
                 .map(mapper::transformUserToUserDto)
@@ -40,8 +60,13 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional
-    public UserDto updateUser(long userId, UserUpdatedDto userDto) {
-        User userFromDb = validateUserDto(userId);
+    public UserDto updateUser(long userId, UserUpdatedDto userDto, Long version) {
+        User userFromDb = userStorage.findById(userId).orElseThrow(() ->
+                new NotFoundException(String.format("Пользователь с ID %d не найден", userId)));
+        if (version != null && !version.equals(userFromDb.getVersion())) {
+            throw new PreconditionFailedException(String.format(
+                    "Пользователь с ID %d был изменен, текущая версия %d", userId, userFromDb.getVersion()));
+        }
         User user = mapper.trasformUserUpdatedDtoToUser(userDto, userId);
         if (user.getEmail() != null) {
             userFromDb.setEmail(user.getEmail());
@@ -49,7 +74,8 @@ public class UserServiceImpl implements UserService {
         if (user.getName() != null) {
             userFromDb.setName(user.getName());
         }
-        userStorage.save(userFromDb);
+        userStorage.saveAndFlush(userFromDb);
+        invalidate(userId);
         return mapper.transformUserToUserDto(userFromDb);
     }
 
@@ -58,10 +84,15 @@ public class UserServiceImpl implements UserService {
     public UserDto removeUser(Long id) {
         UserDto userDto = getUserById(id);
         userStorage.deleteById(id);
+        invalidate(id);
+        requestFeed.removeRequester(id);
+        removeFromMatching(id);
+        evictRequests();
         return userDto;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDto getUserById(long id) {
         Optional<User> user = userStorage.findById(id);
         if (user.isPresent()) {
@@ -70,9 +101,38 @@ public class UserServiceImpl implements UserService {
         throw new NotFoundException(String.format("Пользователь с ID %d не найден", id));
     }
 
+    /**
+     * Пользователь берется из карты идентичности запроса, а при промахе через findById из региона
+     * shareit.user кэша второго уровня. Регион отдает каждой сессии свою копию, поэтому незакоммиченные
+     * изменения другого запроса сюда не попадают.
+     */
     @Override
+    @Transactional(readOnly = true)
     public User validateUserDto(long userId) {
-        return userStorage.findById(userId).orElseThrow(() ->
-                new NotFoundException(String.format("Пользователь с ID %d не найден", userId)));
+        User user = identityMap.get(User.class, userId, id -> userStorage.findById(id).orElse(null));
+        if (user == null) {
+            throw new NotFoundException(String.format("Пользователь с ID %d не найден", userId));
+        }
+        return user;
+    }
+
+    private void removeFromMatching(long userId) {
+        TransactionCallbacks.afterCommit(() -> requestMatchingEngine.removeOwner(userId));
+    }
+
+    /**
+     * Запросы пользователя удаляет ON DELETE CASCADE в базе, и Hibernate об этом не знает:
+     * после коммита сбрасываем регион запросов и кэш запросов, иначе они отдают удаленные записи.
+     */
+    private void evictRequests() {
+        TransactionCallbacks.afterCommit(() -> {
+            Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+            cache.evictEntityData(ItemRequest.class);
+            cache.evictDefaultQueryRegion();
+        });
+    }
+
+    private void invalidate(long userId) {
+        identityMap.evict(User.class, userId);
     }
 }
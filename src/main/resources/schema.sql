@@ -3,29 +3,44 @@ DROP TABLE IF EXISTS item CASCADE;
 DROP TABLE IF EXISTS booking CASCADE;
 DROP TABLE IF EXISTS comments CASCADE;
 DROP TABLE IF EXISTS requests CASCADE;
+DROP SEQUENCE IF EXISTS users_seq;
+DROP SEQUENCE IF EXISTS requests_seq;
+DROP SEQUENCE IF EXISTS item_seq;
+DROP SEQUENCE IF EXISTS booking_seq;
+DROP SEQUENCE IF EXISTS comments_seq;
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS item_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS booking_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE IF NOT EXISTS users (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     email VARCHAR(512) UNIQUE NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
     time_created TIMESTAMP NOT NULL DEFAULT (CURRENT_TIMESTAMP())
 );
 
 
 CREATE TABLE IF NOT EXISTS requests (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
+    id BIGINT PRIMARY KEY,
     description VARCHAR NOT NULL,
     requester_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
     created TIMESTAMP WITHOUT TIME ZONE NOT NULL
 );
+CREATE INDEX IF NOT EXISTS requests_requester_created_idx ON requests (requester_id, created DESC);
+CREATE INDEX IF NOT EXISTS requests_created_idx ON requests (created DESC, id DESC);
 
 CREATE TABLE IF NOT EXISTS item (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     name VARCHAR,
     description VARCHAR,
     available BOOLEAN NOT NULL DEFAULT (false),
     user_id BIGINT NOT NULL,
     request_id BIGINT,
+    version BIGINT NOT NULL DEFAULT 0,
     time_created TIMESTAMP NOT NULL DEFAULT (CURRENT_TIMESTAMP())
 );
 
@@ -33,23 +48,32 @@ ALTER TABLE item
     ADD FOREIGN KEY (user_id) REFERENCES users (id);
 ALTER TABLE item
     ADD FOREIGN KEY (request_id) REFERENCES requests (id);
+CREATE INDEX IF NOT EXISTS item_user_idx ON item (user_id, id);
+CREATE INDEX IF NOT EXISTS item_request_idx ON item (request_id);
 
 CREATE TABLE IF NOT EXISTS booking (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     start_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     end_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     item_id BIGINT NOT NULL,
     booker_id BIGINT NOT NULL,
     status VARCHAR(60) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
     time_created TIMESTAMP NOT NULL DEFAULT (CURRENT_TIMESTAMP())
 );
 ALTER TABLE booking
     ADD FOREIGN KEY (item_id) REFERENCES item (id);
 ALTER TABLE booking
     ADD FOREIGN KEY (booker_id) REFERENCES users (id);
+CREATE INDEX IF NOT EXISTS booking_booker_start_idx ON booking (booker_id, start_time DESC, id DESC, end_time, status);
+CREATE INDEX IF NOT EXISTS booking_item_start_idx ON booking (item_id, start_time DESC, id DESC, end_time, status);
+CREATE INDEX IF NOT EXISTS booking_item_end_idx ON booking (item_id, end_time);
+CREATE INDEX IF NOT EXISTS booking_item_booker_idx ON booking (item_id, booker_id, start_time);
+CREATE INDEX IF NOT EXISTS booking_status_start_idx ON booking (status, start_time);
+CREATE INDEX IF NOT EXISTS booking_end_idx ON booking (end_time);
 
 CREATE TABLE IF NOT EXISTS comments (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     text VARCHAR NOT NULL,
     item_id BIGINT NOT NULL,
     author_id BIGINT NOT NULL,
@@ -59,4 +83,6 @@ ALTER TABLE comments
     ADD FOREIGN KEY (item_id) REFERENCES item (id);
 ALTER TABLE comments
     ADD FOREIGN KEY (author_id) REFERENCES users (id);
+CREATE INDEX IF NOT EXISTS comments_item_idx ON comments (item_id, time_created);
+CREATE INDEX IF NOT EXISTS comments_author_idx ON comments (author_id);
 
@@ -0,0 +1,199 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingCursor;
+import ru.practicum.shareit.booking.storage.BookingFilter;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.storage.BookingsPageableStorage;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.CommentStorage;
+import ru.practicum.shareit.item.storage.ItemPageableStorage;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.RequestStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Прогоняет SQL каждого метода репозиториев через EXPLAIN в H2 и падает, если план
+ * содержит tableScan. Не проверяются поиск по подстроке (LIKE '%text%' индексом не
+ * обслуживается), выборки чужих запросов findAllByRequesterIdNot* (условие "не равно" выбирает
+ * почти всю таблицу) и сводки countByBooker/countByOwner для BookingSummary: они агрегируют все
+ * брони при старте, и полный просмотр для них дешевле обхода по индексу.
+ */
+@DataJpaTest(properties = SqlRecorder.PROPERTY)
+class QueryPlanTest {
+    private static final String TABLE_SCAN = ".tableScan";
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private BookingStorage bookingStorage;
+    @Autowired
+    private BookingsPageableStorage bookingsPageableStorage;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private ItemPageableStorage itemPageableStorage;
+    @Autowired
+    private CommentStorage commentStorage;
+    @Autowired
+    private RequestStorage requestStorage;
+    @Autowired
+    private UserStorage userStorage;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private ItemRequest request;
+    private Booking booking;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(User.builder().name("owner").email("owner@mail.ru").build());
+        booker = entityManager.persist(User.builder().name("booker").email("booker@mail.ru").build());
+        request = entityManager.persist(ItemRequest.builder()
+                .description("Нужна дрель")
+                .created(LocalDateTime.now())
+                .requester(booker)
+                .build());
+        item = entityManager.persist(Item.builder()
+                .name("Дрель")
+                .description("Ударная")
+                .available(true)
+                .user(owner)
+                .itemRequest(request)
+                .build());
+        booking = entityManager.persist(Booking.builder()
+                .start(LocalDateTime.now().minusDays(2))
+                .end(LocalDateTime.now().minusDays(1))
+                .item(item)
+                .booker(booker)
+                .status(Status.APPROVED)
+                .build());
+        entityManager.persist(Comment.builder()
+                .text("Отличная дрель")
+                .item(item)
+                .author(booker)
+                .created(LocalDateTime.now())
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void bookingQueriesShouldUseIndexes() {
+        assertIndexed(() -> bookingStorage.findByItemId(item.getId()));
+        assertIndexed(() -> bookingStorage.findByItemIdAndBookerId(item.getId(), booker.getId()));
+        assertIndexed(() -> bookingStorage.findLastByItemIdIn(List.of(item.getId()), LocalDateTime.now()));
+        assertIndexed(() -> bookingStorage.findNextByItemIdIn(List.of(item.getId()), LocalDateTime.now()));
+        assertIndexed(() -> bookingStorage.findActiveByItemIdIn(List.of(item.getId()), LocalDateTime.now()));
+        assertIndexed(() -> bookingStorage.findAllByItemIdAndStatusInAndEndAfter(
+                item.getId(), List.of(Status.WAITING, Status.APPROVED), LocalDateTime.now().minusDays(3)));
+        assertIndexed(() -> bookingStorage.findById(booking.getId()));
+        assertIndexed(() -> bookingStorage.findAllByIdIn(List.of(booking.getId())));
+        assertIndexed(() -> bookingStorage.lockIdsByStatus(List.of(booking.getId()), Status.WAITING));
+        assertIndexed(() -> bookingStorage.updateStatus(List.of(booking.getId()), Status.WAITING, Status.APPROVED));
+        assertIndexed(() -> bookingStorage.findDeadlines(LocalDateTime.now()));
+        assertIndexed(() -> bookingStorage.findExistingIds(List.of(booking.getId())));
+        assertIndexed(() -> bookingStorage.findIdsByStatus(List.of(booking.getId()), Status.WAITING));
+        assertIndexed(() -> bookingStorage.changeStatusStartedBefore(LocalDateTime.now(), Status.WAITING,
+                Status.EXPIRED));
+        for (BookingRole role : BookingRole.values()) {
+            for (BookingState state : BookingState.values()) {
+                long userId = role == BookingRole.BOOKER ? booker.getId() : owner.getId();
+                BookingFilter filter = BookingFilter.builder()
+                        .role(role)
+                        .state(state)
+                        .userId(userId)
+                        .now(LocalDateTime.now())
+                        .build();
+                assertIndexed(() -> bookingsPageableStorage.findDtoPage(filter, PageRequest.of(0, 10)));
+                assertIndexed(() -> bookingsPageableStorage.findDtoPageAfter(filter, BookingCursor.of(booking), 10));
+            }
+        }
+        assertIndexed(() -> bookingsPageableStorage.findDtoPage(BookingFilter.builder()
+                .role(BookingRole.OWNER)
+                .state(BookingState.ALL)
+                .userId(owner.getId())
+                .itemId(item.getId())
+                .now(LocalDateTime.now())
+                .build(), PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void itemQueriesShouldUseIndexes() {
+        assertIndexed(() -> itemStorage.findById(item.getId()));
+        assertIndexed(() -> itemStorage.findAllByUserId(owner.getId()));
+        assertIndexed(() -> itemStorage.findAllByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10)));
+        assertIndexed(() -> itemStorage.findAllByItemRequestId(request.getId()));
+        assertIndexed(() -> itemStorage.findAllByItemRequestIdIn(List.of(request.getId())));
+        assertIndexed(() -> itemPageableStorage.findAllByUserId(owner.getId(), PageRequest.of(0, 10)));
+        assertIndexed(() -> commentStorage.findAllByItemIdIn(List.of(item.getId())));
+    }
+
+    @Test
+    void requestAndUserQueriesShouldUseIndexes() {
+        assertIndexed(() -> requestStorage.findAllByRequesterId(booker.getId()));
+        assertIndexed(() -> requestStorage.findAllByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10)));
+        assertIndexed(() -> requestStorage.findByIdAndRequesterId(request.getId(), booker.getId()));
+        assertIndexed(() -> userStorage.findById(owner.getId()));
+    }
+
+    private void assertIndexed(Runnable repositoryCall) {
+        SqlRecorder.reset();
+        repositoryCall.run();
+        entityManager.clear();
+        List<String> statements = SqlRecorder.statements();
+        assertFalse(statements.isEmpty(), "Запрос не дошел до базы");
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(plan.contains(TABLE_SCAN), "Полный просмотр таблицы:\n" + sql + "\n" + plan);
+        }
+    }
+
+    private String explain(String sql) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setNull(i, Types.NULL);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
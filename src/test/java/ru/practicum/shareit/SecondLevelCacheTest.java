@@ -0,0 +1,163 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.CommentStorage;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.RequestStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет кэш второго уровня по статистике Hibernate: первое чтение идет в базу и кладет
+ * сущность в регион, второе обслуживается из кэша.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+class SecondLevelCacheTest {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private RequestStorage requestStorage;
+    @Autowired
+    private BookingStorage bookingStorage;
+    @Autowired
+    private CommentStorage commentStorage;
+    @Autowired
+    private UserService userService;
+
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+    private User user;
+    private Item item;
+    private ItemRequest request;
+
+    @BeforeEach
+    void setUp() {
+        commentStorage.deleteAll();
+        bookingStorage.deleteAll();
+        itemStorage.deleteAll();
+        requestStorage.deleteAll();
+        userStorage.deleteAll();
+
+        user = userStorage.save(User.builder().name("user").email("user@mail.ru").build());
+        request = requestStorage.save(ItemRequest.builder()
+                .description("Нужна дрель")
+                .created(LocalDateTime.now())
+                .requester(user)
+                .build());
+        item = itemStorage.save(Item.builder()
+                .name("Дрель")
+                .description("Ударная дрель")
+                .available(true)
+                .user(user)
+                .itemRequest(request)
+                .build());
+
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findById_whenReadTwice_thenSecondReadIsCacheHit() {
+        userStorage.findById(user.getId());
+        userStorage.findById(user.getId());
+        itemStorage.findById(item.getId());
+        itemStorage.findById(item.getId());
+        requestStorage.findById(request.getId());
+        requestStorage.findById(request.getId());
+
+        assertRegion(User.CACHE_REGION);
+        assertRegion(Item.CACHE_REGION);
+        assertRegion(ItemRequest.CACHE_REGION);
+    }
+
+    @Test
+    void validateUserDto_whenReadTwice_thenEachCallGetsOwnCopyFromRegion() {
+        User first = userService.validateUserDto(user.getId());
+        first.setName("uncommitted");
+        User second = userService.validateUserDto(user.getId());
+
+        assertNotSame(first, second);
+        assertEquals("user", second.getName());
+        assertRegion(User.CACHE_REGION);
+    }
+
+    @Test
+    void findAllByRequesterId_whenReadTwice_thenSecondReadIsQueryCacheHit() {
+        requestStorage.findAllByRequesterId(user.getId());
+        requestStorage.findAllByRequesterId(user.getId());
+
+        assertEquals(1, statistics.getQueryCacheMissCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void findById_whenUpdated_thenNewValueReturned() {
+        userStorage.findById(user.getId());
+        User updated = userStorage.findById(user.getId()).orElseThrow();
+        updated.setName("updated");
+        userStorage.save(updated);
+
+        assertEquals("updated", userStorage.findById(user.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void findAllByRequesterId_whenRequestAdded_thenQueryCacheInvalidated() {
+        assertEquals(1, requestStorage.findAllByRequesterId(user.getId()).size());
+        requestStorage.save(ItemRequest.builder()
+                .description("Нужна пила")
+                .created(LocalDateTime.now())
+                .requester(user)
+                .build());
+
+        assertEquals(2, requestStorage.findAllByRequesterId(user.getId()).size());
+    }
+
+    @Test
+    void removeUser_whenRequestsDeletedByCascade_thenCachedRequestsEvicted() {
+        User requester = userStorage.save(User.builder().name("requester").email("requester@mail.ru").build());
+        ItemRequest cascaded = requestStorage.save(ItemRequest.builder()
+                .description("Нужна пила")
+                .created(LocalDateTime.now())
+                .requester(requester)
+                .build());
+        requestStorage.findById(cascaded.getId());
+        assertEquals(1, requestStorage.findAllByRequesterId(requester.getId()).size());
+
+        userService.removeUser(requester.getId());
+
+        assertTrue(requestStorage.findById(cascaded.getId()).isEmpty());
+        assertTrue(requestStorage.findAllByRequesterId(requester.getId()).isEmpty());
+    }
+
+    private void assertRegion(String region) {
+        CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+        assertEquals(1, regionStatistics.getMissCount(), region);
+        assertEquals(1, regionStatistics.getPutCount(), region);
+        assertEquals(1, regionStatistics.getHitCount(), region);
+    }
+}
@@ -1,13 +1,26 @@
 package ru.practicum.shareit;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemTrigramIndex;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
 public class ShareItAppTest {
 
+    @Autowired
+    private ItemSearchEngine itemSearchEngine;
+
     @Test
     public void contextLoads() {
         // Пустой тест для проверки загрузки контекста
     }
+
+    @Test
+    public void defaultSearchEngineShouldMatchSubstrings() {
+        assertThat(itemSearchEngine).isInstanceOf(ItemTrigramIndex.class);
+    }
 }
@@ -0,0 +1,178 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.storage.CommentStorage;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.feed.RequestFeed;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.RequestStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Считает SQL-запросы на каждый GET-эндпоинт. Данных больше одной записи, поэтому
+ * ленивая связь, подгружаемая отдельным select на каждую строку (N+1), увеличит число
+ * запросов и тест упадет. Кэш второго уровня выключен, иначе число запросов зависит от
+ * порядка тестов.
+ */
+@SpringBootTest(properties = {
+        SqlRecorder.PROPERTY,
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class SqlStatementCountTest {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final int ITEMS = 3;
+    private static final int HISTORY = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private BookingStorage bookingStorage;
+    @Autowired
+    private CommentStorage commentStorage;
+    @Autowired
+    private RequestStorage requestStorage;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private RequestFeed requestFeed;
+    @Autowired
+    private ItemSearchEngine itemSearchEngine;
+
+    private User owner;
+    private User booker;
+    private ItemRequest request;
+    private final List<Item> items = new ArrayList<>();
+    private final List<Booking> bookings = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        commentStorage.deleteAll();
+        bookingStorage.deleteAll();
+        itemStorage.deleteAll();
+        requestStorage.deleteAll();
+        userStorage.deleteAll();
+        items.clear();
+        bookings.clear();
+
+        owner = userStorage.save(User.builder().name("owner").email("owner@mail.ru").build());
+        booker = userStorage.save(User.builder().name("booker").email("booker@mail.ru").build());
+        request = requestStorage.save(ItemRequest.builder()
+                .description("Нужна дрель")
+                .created(LocalDateTime.now())
+                .requester(booker)
+                .build());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = itemStorage.save(Item.builder()
+                    .name("Дрель " + i)
+                    .description("Ударная дрель")
+                    .available(true)
+                    .user(owner)
+                    .itemRequest(request)
+                    .build());
+            itemSearchEngine.index(item);
+            items.add(item);
+            bookings.add(bookingStorage.save(Booking.builder()
+                    .start(now.minusDays(i + 2))
+                    .end(now.minusDays(i + 1))
+                    .item(item)
+                    .booker(booker)
+                    .status(Status.APPROVED)
+                    .build()));
+            bookingStorage.save(Booking.builder()
+                    .start(now.plusDays(i + 1))
+                    .end(now.plusDays(i + 2))
+                    .item(item)
+                    .booker(booker)
+                    .status(Status.WAITING)
+                    .build());
+            commentStorage.save(Comment.builder()
+                    .text("Отличная дрель")
+                    .item(item)
+                    .author(booker)
+                    .created(now)
+                    .build());
+        }
+        requestFeed.rebuild();
+    }
+
+    @Test
+    void bookingEndpoints() throws Exception {
+        assertStatements(2, get("/bookings/{id}", bookings.get(0).getId()).header(USER_HEADER, booker.getId()));
+        assertStatements(2, get("/bookings").header(USER_HEADER, booker.getId()));
+        assertStatements(2, get("/bookings/owner").header(USER_HEADER, owner.getId()));
+        assertStatements(2, get("/bookings").param("cursor", "").header(USER_HEADER, booker.getId()));
+    }
+
+    @Test
+    void itemEndpoints() throws Exception {
+        assertStatements(5, get("/items/{id}", items.get(0).getId()).header(USER_HEADER, owner.getId()));
+        assertStatements(3, get("/items/{id}", items.get(0).getId()).header(USER_HEADER, booker.getId()));
+        assertStatements(5, get("/items").header(USER_HEADER, owner.getId()));
+        assertStatements(3, get("/items/search").param("text", "дрель").header(USER_HEADER, booker.getId()));
+    }
+
+    @Test
+    void itemEndpointsDoNotDependOnBookingHistory() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        for (Item item : items) {
+            for (int i = 0; i < HISTORY; i++) {
+                bookingStorage.save(Booking.builder()
+                        .start(now.minusDays(i + 10).minusHours(1))
+                        .end(now.minusDays(i + 10))
+                        .item(item)
+                        .booker(booker)
+                        .status(Status.APPROVED)
+                        .build());
+            }
+        }
+
+        assertStatements(5, get("/items/{id}", items.get(0).getId()).header(USER_HEADER, owner.getId()));
+        assertStatements(5, get("/items").header(USER_HEADER, owner.getId()));
+    }
+
+    @Test
+    void requestEndpoints() throws Exception {
+        assertStatements(3, get("/requests").header(USER_HEADER, booker.getId()));
+        assertStatements(1, get("/requests/all").header(USER_HEADER, owner.getId()));
+        assertStatements(3, get("/requests/{id}", request.getId()).header(USER_HEADER, owner.getId()));
+    }
+
+    private void assertStatements(int expected, MockHttpServletRequestBuilder request) throws Exception {
+        entityManagerFactory.getCache().evict(User.class);
+        SqlRecorder.reset();
+        mockMvc.perform(request).andExpect(status().isOk());
+        List<String> statements = SqlRecorder.statements();
+        assertEquals(expected, statements.size(), String.join("\n", statements));
+    }
+}
@@ -7,22 +7,36 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingCreatedDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.idempotency.IdempotencyKeys;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(BookingController.class)
+@Import({EntityTags.class, IdempotencyKeys.class})
 public class BookingControllerTest {
 
     @Autowired
@@ -31,12 +45,17 @@ public class BookingControllerTest {
     @MockBean
     private BookingService bookingService;
 
+    @MockBean
+    private UserService userService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        when(userService.validateUserDto(anyLong()))
+                .thenAnswer(invocation -> User.builder().id(invocation.getArgument(0)).build());
     }
 
     @Test
@@ -58,13 +77,56 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.id").value(bookingDto.getId()));
     }
 
+    @Test
+    public void testAddBookingWithIdempotencyKeyRunsOnce() throws Exception {
+        BookingCreatedDto bookingCreatedDto = new BookingCreatedDto(1L, LocalDateTime.now().plusDays(2),
+                LocalDateTime.now().plusDays(3));
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(7L);
+
+        when(bookingService.addBooking(any(BookingCreatedDto.class), anyLong())).thenReturn(bookingDto);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/bookings")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1L)
+                            .header(IdempotencyKeys.HEADER, "booking-retry")
+                            .content(objectMapper.writeValueAsString(bookingCreatedDto)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(7L));
+        }
+
+        verify(bookingService, times(1)).addBooking(any(BookingCreatedDto.class), anyLong());
+    }
+
+    @Test
+    public void testAddBookings() throws Exception {
+        BookingCreatedDto bookingCreatedDto = new BookingCreatedDto(1L, LocalDateTime.now().plusDays(2),
+                LocalDateTime.now().plusDays(3));
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(1L);
+
+        when(bookingService.addBookings(anyList(), anyLong())).thenReturn(List.of(
+                BookingBatchResultDto.builder().index(0).booking(bookingDto).build(),
+                BookingBatchResultDto.builder().index(1).error("Вещь с ID 1 уже забронирована на эти даты").build()));
+
+        mockMvc.perform(post("/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 2L)
+                        .content(objectMapper.writeValueAsString(List.of(bookingCreatedDto, bookingCreatedDto))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].booking.id").value(1L))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].error").value("Вещь с ID 1 уже забронирована на эти даты"));
+    }
+
     @Test
     public void testApproveBooking() throws Exception {
         BookingDto bookingDto = new BookingDto();
         bookingDto.setStart(LocalDateTime.now().plusDays(2));
         bookingDto.setEnd(LocalDateTime.now().plusDays(3));
 
-        when(bookingService.approveBooking(anyLong(), anyBoolean(), anyLong())).thenReturn(bookingDto);
+        when(bookingService.approveBooking(anyLong(), anyBoolean(), anyLong(), isNull())).thenReturn(bookingDto);
 
         mockMvc.perform(patch("/bookings/{bookingId}", 1L)
                         .param("approved", "true")
@@ -74,6 +136,39 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.id").value(bookingDto.getId()));
     }
 
+    @Test
+    public void testApproveBookings() throws Exception {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(1L);
+
+        when(bookingService.approveBookings(List.of(1L, 2L), true, 1L)).thenReturn(List.of(
+                BookingBatchResultDto.builder().index(0).booking(bookingDto).build(),
+                BookingBatchResultDto.builder().index(1).error("Нельзя подтверить бронь после подтверждения!").build()));
+
+        mockMvc.perform(patch("/bookings/batch")
+                        .param("approved", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L)
+                        .content(objectMapper.writeValueAsString(List.of(1L, 2L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].booking.id").value(1L))
+                .andExpect(jsonPath("$[1].error").value("Нельзя подтверить бронь после подтверждения!"));
+    }
+
+    @Test
+    public void testGetSummaries() throws Exception {
+        when(bookingService.getUserSummary(1L)).thenReturn(BookingSummaryDto.builder().all(2).waiting(2).build());
+        when(bookingService.getOwnerSummary(1L)).thenReturn(BookingSummaryDto.builder().all(1).approved(1).build());
+
+        mockMvc.perform(get("/bookings/summary").header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all").value(2))
+                .andExpect(jsonPath("$.waiting").value(2));
+        mockMvc.perform(get("/bookings/owner/summary").header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.approved").value(1));
+    }
+
     @Test
     public void testGetBookingById() throws Exception {
         BookingDto bookingDto = new BookingDto();
@@ -89,13 +184,27 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.id").value(bookingDto.getId()));
     }
 
+    @Test
+    public void testGetBookingByIdUnknownUser() throws Exception {
+        when(userService.validateUserDto(99L)).thenThrow(new NotFoundException("Пользователь с ID 99 не найден"));
+
+        mockMvc.perform(get("/bookings/{bookingId}", 1L)
+                        .header("X-Sharer-User-Id", 99L))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch("/bookings/{bookingId}", 1L)
+                        .param("approved", "true"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(bookingService);
+    }
+
     @Test
     public void testGetAllBookingsByUser() throws Exception {
         BookingDto bookingDto = new BookingDto();
         bookingDto.setStart(LocalDateTime.now().plusDays(2));
         bookingDto.setEnd(LocalDateTime.now().plusDays(3));
 
-        when(bookingService.getUserBookings(any(), anyLong(), anyInt(), anyInt()))
+        when(bookingService.getUserBookings(any(), anyLong(), isNull(), anyInt(), anyInt()))
                 .thenReturn(Collections.singletonList(bookingDto));
 
         mockMvc.perform(get("/bookings")
@@ -114,7 +223,7 @@ public class BookingControllerTest {
         bookingDto.setStart(LocalDateTime.now().plusDays(2));
         bookingDto.setEnd(LocalDateTime.now().plusDays(3));
 
-        when(bookingService.getAllBookingsByUserOwner(any(), anyLong(), anyInt(), anyInt()))
+        when(bookingService.getAllBookingsByUserOwner(any(), anyLong(), isNull(), anyInt(), anyInt()))
                 .thenReturn(Collections.singletonList(bookingDto));
 
         mockMvc.perform(get("/bookings/owner")
@@ -126,4 +235,50 @@ public class BookingControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$[0].id").value(bookingDto.getId()));
     }
+
+    @Test
+    public void testGetAllBookingsByUserWithCursor() throws Exception {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(1L);
+
+        when(bookingService.getUserBookingsPage(any(), anyLong(), isNull(), anyString(), anyInt()))
+                .thenReturn(new BookingPageDto(Collections.singletonList(bookingDto), "next"));
+
+        mockMvc.perform(get("/bookings")
+                        .param("state", "ALL")
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    public void testGetBookingsByOwnerWithCursorOnLastPage() throws Exception {
+        when(bookingService.getOwnerBookingsPage(any(), anyLong(), isNull(), anyString(), anyInt()))
+                .thenReturn(new BookingPageDto(Collections.emptyList(), null));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .param("cursor", "abc")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void testGetBookingsByOwnerFilteredByItem() throws Exception {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(1L);
+
+        when(bookingService.getAllBookingsByUserOwner(eq("PAST"), eq(1L), eq(5L), anyInt(), anyInt()))
+                .thenReturn(Collections.singletonList(bookingDto));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .param("state", "PAST")
+                        .param("itemId", "5")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
 }
@@ -0,0 +1,197 @@
+package ru.practicum.shareit.booking.expiry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.schedule.BookingSchedule;
+import ru.practicum.shareit.booking.storage.BookingDeadline;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.summary.BookingSummary;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BookingExpiryTest {
+    private static final LocalDateTime START = LocalDateTime.now().plusHours(1);
+
+    @Mock
+    private BookingStorage storage;
+    @Mock
+    private BookingSchedule bookingSchedule;
+    @Mock
+    private BookingSummary bookingSummary;
+
+    private BookingExpiry expiry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        expiry = new BookingExpiry(storage, bookingSchedule, bookingSummary, 1_000);
+        when(storage.findExistingIds(anyCollection())).thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+    }
+
+    @Test
+    void expire_shouldExpireWaitingBookingsAtStartInOneUpdate() {
+        expiry.schedule(booking(1L, 10L, START, START.plusHours(2)));
+        expiry.schedule(booking(2L, 20L, START, START.plusHours(2)));
+        when(storage.expireWaiting(anyCollection())).thenReturn(List.of(2L));
+
+        expiry.expire(millis(START.minusSeconds(10)));
+        verify(storage, never()).expireWaiting(anyCollection());
+
+        expiry.expire(millis(START.plusSeconds(10)));
+
+        verify(storage, times(1)).expireWaiting(List.of(1L, 2L));
+        verify(bookingSchedule, never()).release(10L, 1L);
+        verify(bookingSchedule).release(20L, 2L);
+        verify(bookingSummary, times(2)).started(3L, 4L);
+        verify(bookingSummary, times(1)).statusChanged(3L, 4L, Status.WAITING, Status.EXPIRED);
+        assertEquals(2, expiry.pending());
+    }
+
+    @Test
+    void expire_shouldReleaseIntervalAtEnd() {
+        expiry.schedule(booking(1L, 10L, START, START.plusHours(2)));
+
+        expiry.expire(millis(START.plusHours(3)));
+
+        verify(bookingSchedule, times(1)).release(10L, 1L);
+        verify(bookingSummary).started(3L, 4L);
+        verify(bookingSummary).ended(3L, 4L);
+        assertEquals(0, expiry.pending());
+    }
+
+    @Test
+    void expire_shouldSkipBookingsMissingFromDatabase() {
+        expiry.schedule(booking(1L, 10L, START, START.plusHours(2)));
+        when(storage.findExistingIds(anyCollection())).thenReturn(List.of());
+
+        expiry.expire(millis(START.plusHours(3)));
+
+        verify(storage, never()).expireWaiting(anyCollection());
+        verifyNoInteractions(bookingSchedule, bookingSummary);
+        assertEquals(0, expiry.pending());
+    }
+
+    @Test
+    void expire_shouldRequeueDeadlinesWhenExistenceCheckFails() {
+        expiry.schedule(booking(1L, 10L, START, START.plusHours(2)));
+        when(storage.findExistingIds(anyCollection()))
+                .thenThrow(new IllegalStateException("База недоступна"))
+                .thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+
+        assertThrows(IllegalStateException.class, () -> expiry.expire(millis(START.plusHours(3))));
+        assertEquals(2, expiry.pending());
+        verifyNoInteractions(bookingSchedule, bookingSummary);
+
+        expiry.expire(millis(START.plusHours(3).plusSeconds(1)));
+
+        verify(storage).expireWaiting(List.of(1L));
+        verify(bookingSummary).started(3L, 4L);
+        verify(bookingSummary).ended(3L, 4L);
+        verify(bookingSchedule).release(10L, 1L);
+        assertEquals(0, expiry.pending());
+    }
+
+    @Test
+    void schedule_shouldAddDeadlinesOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            expiry.schedule(booking(1L, 10L, START, START.plusHours(2)));
+            assertEquals(0, expiry.pending());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(2, expiry.pending());
+    }
+
+    @Test
+    void schedule_RolledBack_ShouldNotAddDeadlines() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            expiry.schedule(booking(1L, 10L, START, START.plusHours(2)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        expiry.expire(millis(START.plusHours(3)));
+
+        assertEquals(0, expiry.pending());
+        verifyNoInteractions(bookingSchedule, bookingSummary);
+    }
+
+    @Test
+    void expire_shouldRetryWhenUpdateFails() {
+        expiry.schedule(booking(1L, 10L, START, START.plusHours(2)));
+        when(storage.expireWaiting(anyCollection()))
+                .thenThrow(new IllegalStateException("База недоступна"))
+                .thenReturn(List.of(1L));
+
+        expiry.expire(millis(START.plusSeconds(10)));
+        verify(bookingSummary, never()).statusChanged(anyLong(), anyLong(), any(), any());
+
+        expiry.expire(millis(START.plusSeconds(20)));
+
+        verify(storage, times(2)).expireWaiting(List.of(1L));
+        verify(bookingSummary, times(1)).started(3L, 4L);
+        verify(bookingSummary, times(1)).statusChanged(3L, 4L, Status.WAITING, Status.EXPIRED);
+        verify(bookingSchedule, times(1)).release(10L, 1L);
+    }
+
+    @Test
+    void recover_shouldExpireStartedAndLoadPendingDeadlines() {
+        BookingDeadline future = deadline(1L, START);
+        BookingDeadline current = deadline(2L, LocalDateTime.now().minusHours(1));
+        when(storage.findDeadlines(any())).thenReturn(List.of(future, current));
+
+        expiry.recover();
+
+        verify(storage).changeStatusStartedBefore(any(), eq(Status.WAITING), eq(Status.EXPIRED));
+        verify(bookingSummary).rebuild(any());
+        assertEquals(3, expiry.pending());
+    }
+
+    private BookingDeadline deadline(long id, LocalDateTime start) {
+        BookingDeadline deadline = mock(BookingDeadline.class);
+        when(deadline.getId()).thenReturn(id);
+        when(deadline.getItemId()).thenReturn(10L);
+        when(deadline.getBookerId()).thenReturn(3L);
+        when(deadline.getOwnerId()).thenReturn(4L);
+        when(deadline.getStartTime()).thenReturn(start);
+        when(deadline.getEndTime()).thenReturn(START.plusHours(2));
+        return deadline;
+    }
+
+    private Booking booking(long id, long itemId, LocalDateTime start, LocalDateTime end) {
+        Item item = new Item();
+        item.setId(itemId);
+        item.setUser(new User(4L, "owner", "owner@mail.ru", 0L));
+        return Booking.builder()
+                .id(id)
+                .item(item)
+                .booker(new User(3L, "booker", "booker@mail.ru", 0L))
+                .start(start)
+                .end(end)
+                .status(Status.WAITING)
+                .build();
+    }
+
+    private long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.booking.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    private static final long TICK = 1_000;
+
+    @Test
+    void advance_shouldFireOnlyAfterDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 0);
+        wheel.add("soon", 2_500);
+        wheel.add("later", 500_000);
+
+        assertEquals(List.of(), wheel.advance(2_000));
+        assertEquals(List.of("soon"), wheel.advance(3_000));
+        assertEquals(List.of(), wheel.advance(499_000));
+        assertEquals(List.of("later"), wheel.advance(501_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void add_shouldReturnPastDeadlineOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 10_000);
+        wheel.add("past", 1_000);
+
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("past"), wheel.advance(10_000));
+    }
+
+    @Test
+    void shouldCascadeFarDeadlinesThroughLevels() {
+        Random random = new Random(42);
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, 4, 0);
+        long[] deadlines = new long[5_000];
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = random.nextInt(10_000_000);
+            wheel.add(i, deadlines[i]);
+        }
+        long[] sorted = deadlines.clone();
+        Arrays.sort(sorted);
+        Set<Integer> fired = new HashSet<>();
+        long now = 0;
+        while (now < 10_100_000) {
+            now += random.nextInt(20_000);
+            long reached = now - now % TICK;
+            for (Integer value : wheel.advance(now)) {
+                assertTrue(deadlines[value] < reached, "Срок " + value + " сработал раньше времени");
+                assertTrue(fired.add(value), "Срок " + value + " сработал дважды");
+            }
+            int expected = 0;
+            while (expected < sorted.length && sorted[expected] < reached) {
+                expected++;
+            }
+            assertEquals(expected, fired.size());
+        }
+        assertEquals(deadlines.length, fired.size());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,152 @@
+package ru.practicum.shareit.booking.schedule;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BookingScheduleTest {
+    private static final int THREADS = 64;
+    private static final LocalDateTime START = LocalDateTime.now().plusDays(1);
+
+    @Mock
+    private BookingStorage storage;
+
+    private BookingSchedule schedule;
+    private final AtomicLong ids = new AtomicLong();
+    private final UnaryOperator<Booking> save = booking -> {
+        booking.setId(ids.incrementAndGet());
+        return booking;
+    };
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        schedule = new BookingSchedule(storage);
+    }
+
+    @Test
+    void book_shouldRejectOverlapWithStoredBooking() {
+        Booking stored = booking(1L, START, START.plusDays(2));
+        stored.setId(100L);
+        when(storage.findAllByItemIdAndStatusInAndEndAfter(eq(1L), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(stored));
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () ->
+                schedule.book(booking(1L, START.plusDays(1), START.plusDays(3)), save));
+
+        assertEquals("Вещь с ID 1 уже забронирована на эти даты", exception.getMessage());
+        assertNotNull(schedule.book(booking(1L, START.plusDays(2), START.plusDays(3)), save));
+        verify(storage, times(1)).findAllByItemIdAndStatusInAndEndAfter(eq(1L), anyCollection(), any());
+    }
+
+    @Test
+    void release_shouldAllowBookingSameDatesAgain() {
+        Booking first = schedule.book(booking(1L, START, START.plusDays(1)), save);
+        first.setStatus(Status.REJECTED);
+
+        schedule.release(first);
+
+        assertNotNull(schedule.book(booking(1L, START, START.plusDays(1)), save));
+        assertThrows(BadRequestException.class, () -> schedule.activate(first));
+    }
+
+    @Test
+    void release_shouldDropTreeOfItemWithoutBookings() {
+        Booking first = schedule.book(booking(1L, START, START.plusDays(1)), save);
+        schedule.book(booking(2L, START, START.plusDays(1)), save);
+        assertThrows(IllegalStateException.class, () -> schedule.book(booking(3L, START, START.plusDays(1)),
+                booking -> {
+                    throw new IllegalStateException("Ошибка сохранения");
+                }));
+
+        assertEquals(2, schedule.itemCount());
+        schedule.release(first);
+
+        assertEquals(1, schedule.itemCount());
+        assertNotNull(schedule.book(booking(1L, START, START.plusDays(1)), save));
+        verify(storage, times(2)).findAllByItemIdAndStatusInAndEndAfter(eq(1L), anyCollection(), any());
+    }
+
+    @Test
+    void book_shouldAllowOnlyOneOfConcurrentOverlappingBookings() throws InterruptedException {
+        AtomicInteger saved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            try {
+                schedule.book(booking(7L, START.plusHours(thread), START.plusHours(thread + THREADS)), booking -> {
+                    saved.incrementAndGet();
+                    return save.apply(booking);
+                });
+            } catch (BadRequestException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, saved.get());
+        assertEquals(THREADS - 1, rejected.get());
+    }
+
+    @Test
+    void book_shouldAcceptConcurrentDisjointBookings() throws InterruptedException {
+        AtomicInteger saved = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            schedule.book(booking(7L, START.plusHours(thread), START.plusHours(thread + 1)), save);
+            saved.incrementAndGet();
+        });
+
+        assertEquals(THREADS, saved.get());
+    }
+
+    private void runConcurrently(ThreadTask task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(1);
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            executor.submit(() -> {
+                ready.await();
+                task.run(thread);
+                return null;
+            });
+        }
+        ready.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    private Booking booking(long itemId, LocalDateTime start, LocalDateTime end) {
+        Item item = new Item();
+        item.setId(itemId);
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setStatus(Status.WAITING);
+        return booking;
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
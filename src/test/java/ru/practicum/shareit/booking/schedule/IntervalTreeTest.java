@@ -0,0 +1,63 @@
+package ru.practicum.shareit.booking.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void overlaps_shouldTreatIntervalsAsHalfOpen() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(1L, BASE.plusHours(10), BASE.plusHours(20));
+
+        assertTrue(tree.overlaps(BASE.plusHours(15), BASE.plusHours(25)));
+        assertTrue(tree.overlaps(BASE.plusHours(5), BASE.plusHours(11)));
+        assertTrue(tree.overlaps(BASE.plusHours(12), BASE.plusHours(13)));
+        assertFalse(tree.overlaps(BASE.plusHours(20), BASE.plusHours(30)));
+        assertFalse(tree.overlaps(BASE, BASE.plusHours(10)));
+    }
+
+    @Test
+    void remove_shouldFreeInterval() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(1L, BASE, BASE.plusHours(1));
+
+        assertTrue(tree.remove(1L));
+        assertFalse(tree.remove(1L));
+        assertFalse(tree.contains(1L));
+        assertFalse(tree.overlaps(BASE, BASE.plusHours(1)));
+    }
+
+    @Test
+    void shouldMatchBruteForceAndStayBalanced() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<long[]> intervals = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(50);
+            tree.add(id, BASE.plusMinutes(start), BASE.plusMinutes(end));
+            intervals.add(new long[]{id, start, end});
+        }
+        for (int i = 0; i < 2_000; i++) {
+            long[] removed = intervals.remove(random.nextInt(intervals.size()));
+            assertTrue(tree.remove(removed[0]));
+        }
+
+        assertEquals(intervals.size(), tree.size());
+        assertTrue(tree.height() <= 1.45 * (Math.log(intervals.size() + 2) / Math.log(2)));
+        for (int i = 0; i < 2_000; i++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(50);
+            boolean expected = intervals.stream().anyMatch(interval -> interval[1] < end && start < interval[2]);
+            assertEquals(expected, tree.overlaps(BASE.plusMinutes(start), BASE.plusMinutes(end)));
+        }
+    }
+}
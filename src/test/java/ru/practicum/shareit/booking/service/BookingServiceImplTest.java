@@ -7,16 +7,27 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingCreatedDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.expiry.BookingExpiry;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.schedule.BookingSchedule;
+import ru.practicum.shareit.booking.storage.BookingCursor;
+import ru.practicum.shareit.booking.storage.BookingFilter;
 import ru.practicum.shareit.booking.storage.BookingStorage;
 import ru.practicum.shareit.booking.storage.BookingsPageableStorage;
+import ru.practicum.shareit.booking.summary.BookingSummary;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.InternalServerErrorException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
@@ -25,8 +36,12 @@ import ru.practicum.shareit.user.service.UserService;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -51,6 +66,15 @@ class BookingServiceImplTest {
     @Mock
     private BookingMapper bookingMapper;
 
+    @Mock
+    private BookingSchedule bookingSchedule;
+
+    @Mock
+    private BookingExpiry bookingExpiry;
+
+    @Mock
+    private BookingSummary bookingSummary;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -82,12 +106,47 @@ class BookingServiceImplTest {
         when(itemService.validateItemById(1L)).thenReturn(item);
         when(userService.validateUserDto(3L)).thenReturn(user);
         when(bookingStorage.save(any(Booking.class))).thenReturn(booking);
+        when(bookingSchedule.book(eq(booking), any())).thenAnswer(invocation ->
+                invocation.<UnaryOperator<Booking>>getArgument(1).apply(invocation.getArgument(0)));
         when(bookingMapper.transformBookingToBookingDto(booking)).thenReturn(new BookingDto());
 
         BookingDto result = bookingService.addBooking(bookingCreatedDto, 3L);
 
         assertNotNull(result);
         verify(bookingStorage, times(1)).save(booking);
+        verify(bookingExpiry).schedule(booking);
+        verify(bookingSummary).added(booking);
+    }
+
+    @Test
+    void addBooking_shouldNotSaveOverlappingBooking() {
+        BookingCreatedDto bookingCreatedDto = new BookingCreatedDto();
+        bookingCreatedDto.setItemId(1L);
+        bookingCreatedDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingCreatedDto.setEnd(LocalDateTime.now().plusDays(2));
+
+        Booking booking = new Booking();
+        booking.setStart(bookingCreatedDto.getStart());
+        booking.setEnd(bookingCreatedDto.getEnd());
+
+        Item item = new Item();
+        item.setId(1L);
+        item.setAvailable(true);
+        User owner = new User();
+        owner.setId(2L);
+        item.setUser(owner);
+
+        when(bookingMapper.transformBookingCreatedDtoToBooking(bookingCreatedDto)).thenReturn(booking);
+        when(itemService.validateItemById(1L)).thenReturn(item);
+        when(userService.validateUserDto(3L)).thenReturn(new User());
+        when(bookingSchedule.book(eq(booking), any()))
+                .thenThrow(new BadRequestException("Вещь с ID 1 уже забронирована на эти даты"));
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () ->
+                bookingService.addBooking(bookingCreatedDto, 3L));
+
+        assertEquals("Вещь с ID 1 уже забронирована на эти даты", exception.getMessage());
+        verify(bookingStorage, never()).save(any());
     }
 
     @Test
@@ -109,6 +168,215 @@ class BookingServiceImplTest {
         assertEquals("Вещь с ID 1 нельзя арендовать", exception.getMessage());
     }
 
+    @Test
+    void addBookings_shouldSaveValidAndReportFailedBookings() {
+        User owner = new User();
+        owner.setId(2L);
+        User user = new User();
+        user.setId(3L);
+        Item item = new Item();
+        item.setId(1L);
+        item.setAvailable(true);
+        item.setUser(owner);
+        Item unavailable = new Item();
+        unavailable.setId(4L);
+        unavailable.setAvailable(false);
+        unavailable.setUser(owner);
+
+        BookingCreatedDto valid = new BookingCreatedDto(1L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+        BookingCreatedDto overlapping = new BookingCreatedDto(1L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+        BookingCreatedDto notAvailable = new BookingCreatedDto(4L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+        BookingCreatedDto missing = new BookingCreatedDto(5L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+        BookingCreatedDto past = new BookingCreatedDto(1L, LocalDateTime.now().minusDays(1),
+                LocalDateTime.now().plusDays(2));
+
+        when(userService.validateUserDto(3L)).thenReturn(user);
+        when(itemService.getItemsByIds(Set.of(1L, 4L, 5L))).thenReturn(Map.of(1L, item, 4L, unavailable));
+        when(bookingMapper.transformBookingCreatedDtoToBooking(any())).thenAnswer(invocation -> {
+            BookingCreatedDto dto = invocation.getArgument(0);
+            return Booking.builder().start(dto.getStart()).end(dto.getEnd()).status(Status.WAITING).build();
+        });
+        when(bookingSchedule.book(any(), any()))
+                .thenAnswer(invocation -> invocation.<UnaryOperator<Booking>>getArgument(1)
+                        .apply(invocation.getArgument(0)))
+                .thenThrow(new BadRequestException("Вещь с ID 1 уже забронирована на эти даты"));
+        when(bookingStorage.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookingMapper.transformBookingToBookingDto(any())).thenReturn(new BookingDto());
+
+        List<BookingBatchResultDto> results = bookingService.addBookings(
+                List.of(valid, overlapping, notAvailable, missing, past), 3L);
+
+        assertEquals(5, results.size());
+        assertNotNull(results.get(0).getBooking());
+        assertNull(results.get(0).getError());
+        assertEquals("Вещь с ID 1 уже забронирована на эти даты", results.get(1).getError());
+        assertEquals("Вещь с ID 4 нельзя арендовать", results.get(2).getError());
+        assertEquals("Вещь с ID 5 не найдена", results.get(3).getError());
+        assertEquals("Неверная дата бронировния", results.get(4).getError());
+        assertEquals(4, results.get(4).getIndex());
+        verify(userService, times(1)).validateUserDto(3L);
+        verify(itemService, times(1)).getItemsByIds(any());
+        verify(itemService, never()).validateItemById(anyLong());
+        verify(bookingStorage, times(1)).save(any());
+        verify(bookingStorage).flush();
+    }
+
+    @Test
+    void addBookings_shouldRejectOwnerBooking() {
+        User owner = new User();
+        owner.setId(2L);
+        Item item = new Item();
+        item.setId(1L);
+        item.setAvailable(true);
+        item.setUser(owner);
+        BookingCreatedDto dto = new BookingCreatedDto(1L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+
+        when(userService.validateUserDto(2L)).thenReturn(owner);
+        when(itemService.getItemsByIds(Set.of(1L))).thenReturn(Map.of(1L, item));
+        when(bookingMapper.transformBookingCreatedDtoToBooking(dto)).thenReturn(
+                Booking.builder().start(dto.getStart()).end(dto.getEnd()).build());
+
+        List<BookingBatchResultDto> results = bookingService.addBookings(List.of(dto), 2L);
+
+        assertEquals("Владелец вещи не может ее забронировать!", results.get(0).getError());
+        verify(bookingSchedule, never()).book(any(), any());
+    }
+
+    @Test
+    void addBookings_shouldThrowExceptionForEmptyOrOversizedBatch() {
+        assertThrows(BadRequestException.class, () -> bookingService.addBookings(List.of(), 3L));
+        List<BookingCreatedDto> tooMany = Collections.nCopies(BookingServiceImpl.MAX_BATCH_SIZE + 1,
+                new BookingCreatedDto());
+        assertThrows(BadRequestException.class, () -> bookingService.addBookings(tooMany, 3L));
+        verify(userService, never()).validateUserDto(anyLong());
+    }
+
+    @Test
+    void approveBooking_shouldThrowExceptionForExpiredBooking() {
+        User owner = new User();
+        owner.setId(1L);
+        Item item = new Item();
+        item.setUser(owner);
+        Booking booking = Booking.builder().id(1L).item(item).status(Status.EXPIRED).build();
+
+        when(bookingStorage.findById(1L)).thenReturn(Optional.of(booking));
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () ->
+                bookingService.approveBooking(1L, true, 1L, null));
+
+        assertEquals("Срок подтверждения брони с ID 1 истек", exception.getMessage());
+        verify(bookingSchedule, never()).activate(any());
+    }
+
+    @Test
+    void getUserSummary_shouldReturnCountersWithoutQueryingBookings() {
+        BookingSummaryDto summary = BookingSummaryDto.builder().all(3).waiting(2).approved(1).build();
+        when(userService.validateUserDto(1L)).thenReturn(new User());
+        when(bookingSummary.getBookerSummary(1L)).thenReturn(summary);
+
+        assertEquals(summary, bookingService.getUserSummary(1L));
+        verifyNoInteractions(bookingStorage, bookingsPageableStorage);
+    }
+
+    @Test
+    void getOwnerSummary_shouldThrowExceptionForUnknownUser() {
+        when(userService.validateUserDto(1L)).thenThrow(new NotFoundException("Пользователь с ID 1 не найден"));
+
+        assertThrows(NotFoundException.class, () -> bookingService.getOwnerSummary(1L));
+        verify(bookingSummary, never()).getOwnerSummary(anyLong());
+    }
+
+    @Test
+    void approveBookings_shouldUpdateAllowedBookingsWithOneQuery() {
+        User owner = new User();
+        owner.setId(1L);
+        User other = new User();
+        other.setId(5L);
+        Item item = new Item();
+        item.setId(1L);
+        item.setUser(owner);
+        Item foreignItem = new Item();
+        foreignItem.setId(2L);
+        foreignItem.setUser(other);
+        Booking waiting = Booking.builder().id(1L).item(item).status(Status.WAITING).version(0L).build();
+        Booking approved = Booking.builder().id(2L).item(item).status(Status.APPROVED).version(3L).build();
+        Booking foreign = Booking.builder().id(3L).item(foreignItem).status(Status.WAITING).version(0L).build();
+
+        when(bookingStorage.findAllByIdIn(List.of(1L, 2L, 3L, 4L, 1L))).thenReturn(List.of(waiting, approved, foreign));
+        when(bookingStorage.lockIdsByStatus(List.of(1L), Status.WAITING)).thenReturn(List.of(1L));
+        when(bookingStorage.updateStatus(List.of(1L), Status.WAITING, Status.APPROVED)).thenReturn(1);
+        when(bookingMapper.transformBookingToBookingDto(waiting)).thenReturn(new BookingDto());
+
+        List<BookingBatchResultDto> results = bookingService.approveBookings(List.of(1L, 2L, 3L, 4L, 1L), true, 1L);
+
+        assertNotNull(results.get(0).getBooking());
+        assertNull(results.get(0).getStatus());
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals(404, results.get(3).getStatus());
+        assertEquals("Нельзя подтверить бронь после подтверждения!", results.get(1).getError());
+        assertEquals("Подтверждение брони может быть выполнено только владельцем!", results.get(2).getError());
+        assertEquals("Бронь с ID 4 не найдена", results.get(3).getError());
+        assertEquals("Бронь с ID 1 указана повторно", results.get(4).getError());
+        assertEquals(Status.APPROVED, waiting.getStatus());
+        assertEquals(1L, waiting.getVersion());
+        verify(bookingSummary).statusChanged(waiting, Status.WAITING, Status.APPROVED);
+        verify(bookingSummary, times(1)).statusChanged(any(Booking.class), any(), any());
+        verify(bookingSchedule, times(1)).activate(waiting);
+        verify(bookingStorage, times(1)).updateStatus(any(), any(), any());
+        verify(bookingStorage, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void approveBookings_shouldReportPreconditionFailedForBookingsChangedConcurrently() {
+        User owner = new User();
+        owner.setId(1L);
+        Item item = new Item();
+        item.setId(1L);
+        item.setUser(owner);
+        Booking changed = Booking.builder().id(1L).item(item).status(Status.WAITING).version(0L).build();
+        Booking waiting = Booking.builder().id(2L).item(item).status(Status.WAITING).version(0L).build();
+        Booking approved = Booking.builder().id(3L).item(item).status(Status.APPROVED).version(1L).build();
+
+        when(bookingStorage.findAllByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(changed, waiting, approved));
+        when(bookingStorage.lockIdsByStatus(List.of(1L, 2L), Status.WAITING)).thenReturn(List.of(2L));
+        when(bookingStorage.lockIdsByStatus(List.of(3L), Status.APPROVED)).thenReturn(List.of(3L));
+        when(bookingStorage.updateStatus(List.of(2L), Status.WAITING, Status.REJECTED)).thenReturn(1);
+        when(bookingStorage.updateStatus(List.of(3L), Status.APPROVED, Status.REJECTED)).thenReturn(1);
+
+        List<BookingBatchResultDto> results = bookingService.approveBookings(List.of(1L, 2L, 3L), false, 1L);
+
+        assertEquals(412, results.get(0).getStatus());
+        assertEquals("Бронь с ID 1 была изменена, повторите запрос", results.get(0).getError());
+        assertNull(results.get(1).getError());
+        assertNull(results.get(2).getError());
+        verify(bookingSchedule, never()).release(changed);
+        verify(bookingSummary, never()).statusChanged(eq(changed), any(), any());
+        verify(bookingSummary).statusChanged(waiting, Status.WAITING, Status.REJECTED);
+        verify(bookingSummary).statusChanged(approved, Status.APPROVED, Status.REJECTED);
+    }
+
+    @Test
+    void approveBookings_shouldFailWhenLockedBookingsWereNotUpdated() {
+        User owner = new User();
+        owner.setId(1L);
+        Item item = new Item();
+        item.setId(1L);
+        item.setUser(owner);
+        Booking waiting = Booking.builder().id(1L).item(item).status(Status.WAITING).version(0L).build();
+
+        when(bookingStorage.findAllByIdIn(List.of(1L))).thenReturn(List.of(waiting));
+        when(bookingStorage.lockIdsByStatus(List.of(1L), Status.WAITING)).thenReturn(List.of(1L));
+        when(bookingStorage.updateStatus(List.of(1L), Status.WAITING, Status.REJECTED)).thenReturn(0);
+
+        assertThrows(PreconditionFailedException.class, () -> bookingService.approveBookings(List.of(1L), false, 1L));
+        verify(bookingSummary, never()).statusChanged(any(Booking.class), any(), any());
+    }
+
     @Test
     void approveBooking_shouldApproveBookingSuccessfully() {
         Booking booking = new Booking();
@@ -125,11 +393,60 @@ class BookingServiceImplTest {
         when(bookingStorage.findById(1L)).thenReturn(Optional.of(booking));
         when(bookingMapper.transformBookingToBookingDto(booking)).thenReturn(new BookingDto());
 
-        BookingDto result = bookingService.approveBooking(1L, true, 2L);
+        BookingDto result = bookingService.approveBooking(1L, true, 2L, null);
 
         assertNotNull(result);
         assertEquals(Status.APPROVED, booking.getStatus());
-        verify(bookingStorage, times(1)).save(booking);
+        verify(bookingSchedule).activate(booking);
+        verify(bookingStorage, times(1)).saveAndFlush(booking);
+        verify(bookingSummary).statusChanged(booking, Status.WAITING, Status.APPROVED);
+    }
+
+    @Test
+    void approveBooking_shouldThrowPreconditionFailedForStaleVersion() {
+        Booking booking = new Booking();
+        booking.setId(1L);
+        booking.setStatus(Status.WAITING);
+        booking.setVersion(1L);
+
+        Item item = new Item();
+        item.setId(1L);
+        User owner = new User();
+        owner.setId(2L);
+        item.setUser(owner);
+        booking.setItem(item);
+
+        when(bookingStorage.findById(1L)).thenReturn(Optional.of(booking));
+
+        PreconditionFailedException exception = assertThrows(PreconditionFailedException.class, () ->
+                bookingService.approveBooking(1L, true, 2L, 0L));
+
+        assertEquals("Бронь с ID 1 была изменена, текущая версия 1", exception.getMessage());
+        assertEquals(Status.WAITING, booking.getStatus());
+        verify(bookingSchedule, never()).activate(any());
+    }
+
+    @Test
+    void approveBooking_shouldReleaseIntervalOnReject() {
+        Booking booking = new Booking();
+        booking.setId(1L);
+        booking.setStatus(Status.WAITING);
+
+        Item item = new Item();
+        item.setId(1L);
+        User owner = new User();
+        owner.setId(2L);
+        item.setUser(owner);
+        booking.setItem(item);
+
+        when(bookingStorage.findById(1L)).thenReturn(Optional.of(booking));
+        when(bookingMapper.transformBookingToBookingDto(booking)).thenReturn(new BookingDto());
+
+        bookingService.approveBooking(1L, false, 2L, null);
+
+        assertEquals(Status.REJECTED, booking.getStatus());
+        verify(bookingSchedule).release(booking);
+        verify(bookingSchedule, never()).activate(any());
     }
 
     @Test
@@ -148,7 +465,7 @@ class BookingServiceImplTest {
         when(bookingStorage.findById(1L)).thenReturn(Optional.of(booking));
 
         NotFoundException exception = assertThrows(NotFoundException.class, () ->
-                bookingService.approveBooking(1L, true, 3L));
+                bookingService.approveBooking(1L, true, 3L, null));
 
         assertEquals("Подтверждение брони может быть выполнено только владельцем!", exception.getMessage());
     }
@@ -162,13 +479,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findAllByBookerIdOrderByStartDesc(userId, pageable)).thenReturn(bookings);
-
-        Collection<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.BOOKER, BookingState.ALL, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getUserBookings("ALL", userId, start, size);
+        Collection<BookingDto> result = bookingService.getUserBookings("ALL", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -183,13 +497,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findAllByEndBeforeAndBookerIdOrderByStartDesc(any(LocalDateTime.class), eq(userId), eq(pageable))).thenReturn(bookings);
-
-        Collection<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.BOOKER, BookingState.PAST, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getUserBookings("PAST", userId, start, size);
+        Collection<BookingDto> result = bookingService.getUserBookings("PAST", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -204,13 +515,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findAllByStartAfterAndBookerIdOrderByStartDesc(any(LocalDateTime.class), eq(userId), eq(pageable))).thenReturn(bookings);
-
-        Collection<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.BOOKER, BookingState.FUTURE, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getUserBookings("FUTURE", userId, start, size);
+        Collection<BookingDto> result = bookingService.getUserBookings("FUTURE", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -225,13 +533,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findAllByEndAfterAndStartBeforeAndBookerIdOrderByStartDesc(any(LocalDateTime.class), any(LocalDateTime.class), eq(userId), eq(pageable))).thenReturn(bookings);
-
         List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.BOOKER, BookingState.CURRENT, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getUserBookings("CURRENT", userId, start, size);
+        Collection<BookingDto> result = bookingService.getUserBookings("CURRENT", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -246,13 +551,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findAllByBookerIdAndStatusOrderByStartDesc(userId, Status.WAITING, pageable)).thenReturn(bookings);
-
-        Collection<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.BOOKER, BookingState.WAITING, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getUserBookings("WAITING", userId, start, size);
+        Collection<BookingDto> result = bookingService.getUserBookings("WAITING", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -267,13 +569,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findAllByBookerIdAndStatusOrderByStartDesc(userId, Status.REJECTED, pageable)).thenReturn(bookings);
-
-        Collection<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.BOOKER, BookingState.REJECTED, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getUserBookings("REJECTED", userId, start, size);
+        Collection<BookingDto> result = bookingService.getUserBookings("REJECTED", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -288,7 +587,7 @@ class BookingServiceImplTest {
         when(userService.validateUserDto(userId)).thenReturn(null);
 
         InternalServerErrorException exception = assertThrows(InternalServerErrorException.class, () ->
-                bookingService.getUserBookings("UNKNOWN_STATE", userId, start, size));
+                bookingService.getUserBookings("UNKNOWN_STATE", userId, null, start, size));
 
         assertEquals("Unknown state: UNKNOWN_STATE", exception.getMessage());
     }
@@ -300,7 +599,7 @@ class BookingServiceImplTest {
         int size = 10;
 
         BadRequestException exception = assertThrows(BadRequestException.class, () ->
-                bookingService.getUserBookings("ALL", userId, start, size));
+                bookingService.getUserBookings("ALL", userId, null, start, size));
 
         assertEquals("Значение from не может быть отрицательным", exception.getMessage());
     }
@@ -314,13 +613,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findAllByItemUserIdOrderByStartDesc(userId, pageable)).thenReturn(bookings);
-
-        Collection<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.OWNER, BookingState.ALL, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("ALL", userId, start, size);
+        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("ALL", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -335,13 +631,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findByEndBeforeAndItemUserIdOrderByStartDesc(any(LocalDateTime.class), eq(userId), eq(pageable))).thenReturn(bookings);
-
-        Collection<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.OWNER, BookingState.PAST, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("PAST", userId, start, size);
+        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("PAST", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -356,13 +649,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findAllByItemUserIdAndStartAfterOrderByStartDesc(eq(userId), any(LocalDateTime.class), eq(pageable))).thenReturn(bookings);
-
-        Collection<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.OWNER, BookingState.FUTURE, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("FUTURE", userId, start, size);
+        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("FUTURE", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -377,14 +667,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findAllByEndAfterAndStartBeforeAndItemUserIdOrderByStartDesc(
-                any(LocalDateTime.class), any(LocalDateTime.class), eq(userId), eq(pageable))).thenReturn(bookings);
-
-        Collection<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.OWNER, BookingState.CURRENT, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("CURRENT", userId, start, size);
+        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("CURRENT", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -399,13 +685,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findAllByItemUserIdAndStatusOrderByStartDesc(userId, Status.WAITING, pageable)).thenReturn(bookings);
-
-        Collection<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.OWNER, BookingState.WAITING, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("WAITING", userId, start, size);
+        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("WAITING", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -420,13 +703,10 @@ class BookingServiceImplTest {
 
         when(userService.validateUserDto(userId)).thenReturn(null);
 
-        List<Booking> bookings = Arrays.asList(new Booking(), new Booking());
-        when(bookingsPageableStorage.findAllByItemUserIdAndStatusOrderByStartDesc(userId, Status.REJECTED, pageable)).thenReturn(bookings);
-
-        Collection<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
-        when(bookingMapper.transformBookingListToBookingDtoList(bookings)).thenReturn(bookingDtos);
+        List<BookingDto> bookingDtos = Arrays.asList(new BookingDto(), new BookingDto());
+        when(bookingsPageableStorage.findDtoPage(filter(BookingRole.OWNER, BookingState.REJECTED, userId), eq(pageable))).thenReturn(bookingDtos);
 
-        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("REJECTED", userId, start, size);
+        Collection<BookingDto> result = bookingService.getAllBookingsByUserOwner("REJECTED", userId, null, start, size);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -441,7 +721,7 @@ class BookingServiceImplTest {
         when(userService.validateUserDto(userId)).thenReturn(null);
 
         InternalServerErrorException exception = assertThrows(InternalServerErrorException.class, () ->
-                bookingService.getAllBookingsByUserOwner("UNKNOWN_STATE", userId, start, size));
+                bookingService.getAllBookingsByUserOwner("UNKNOWN_STATE", userId, null, start, size));
 
         assertEquals("Unknown state: UNKNOWN_STATE", exception.getMessage());
     }
@@ -453,7 +733,7 @@ class BookingServiceImplTest {
         int size = 10;
 
         BadRequestException exception = assertThrows(BadRequestException.class, () ->
-                bookingService.getAllBookingsByUserOwner("ALL", userId, start, size));
+                bookingService.getAllBookingsByUserOwner("ALL", userId, null, start, size));
 
         assertEquals("Значение from не может быть отрицательным", exception.getMessage());
     }
@@ -465,7 +745,7 @@ class BookingServiceImplTest {
         int size = 0;
 
         BadRequestException exception = assertThrows(BadRequestException.class, () ->
-                bookingService.getAllBookingsByUserOwner("ALL", userId, start, size));
+                bookingService.getAllBookingsByUserOwner("ALL", userId, null, start, size));
 
         assertEquals("Значение size не может быть меньше 10", exception.getMessage());
     }
@@ -477,7 +757,7 @@ class BookingServiceImplTest {
         int size = 0;
 
         BadRequestException exception = assertThrows(BadRequestException.class, () ->
-                bookingService.getUserBookings("ALL", userId, start, size));
+                bookingService.getUserBookings("ALL", userId, null, start, size));
 
         assertEquals("Значение size не может быть меньше 10", exception.getMessage());
     }
@@ -485,7 +765,7 @@ class BookingServiceImplTest {
     @Test
     void getUserBookings_shouldThrowExceptionForInvalidStart() {
         BadRequestException exception = assertThrows(BadRequestException.class, () ->
-                bookingService.getUserBookings("ALL", 1L, -1, 10));
+                bookingService.getUserBookings("ALL", 1L, null, -1, 10));
 
         assertEquals("Значение from не может быть отрицательным", exception.getMessage());
     }
@@ -493,7 +773,7 @@ class BookingServiceImplTest {
     @Test
     void getUserBookings_shouldThrowExceptionForInvalidSize() {
         BadRequestException exception = assertThrows(BadRequestException.class, () ->
-                bookingService.getUserBookings("ALL", 1L, 0, 0));
+                bookingService.getUserBookings("ALL", 1L, null, 0, 0));
 
         assertEquals("Значение size не может быть меньше 10", exception.getMessage());
     }
@@ -644,4 +924,50 @@ class BookingServiceImplTest {
 
         assertEquals("Только владелец брони или вещи может получить данные!", exception.getMessage());
     }
+
+    @Test
+    void getUserBookingsPage_shouldReturnNextCursorForFullPage() {
+        long userId = 1L;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto first = BookingDto.builder().id(2L).start(start).build();
+        BookingDto last = BookingDto.builder().id(1L).start(start).build();
+
+        when(bookingsPageableStorage.findDtoPageAfter(filter(BookingRole.BOOKER, BookingState.FUTURE, userId),
+                isNull(), eq(2))).thenReturn(List.of(first, last));
+
+        BookingPageDto result = bookingService.getUserBookingsPage("FUTURE", userId, null, "", 2);
+
+        assertEquals(2, result.getBookings().size());
+        BookingCursor cursor = BookingCursor.decode(result.getNextCursor());
+        assertEquals(start, cursor.getStart());
+        assertEquals(1L, cursor.getId());
+    }
+
+    @Test
+    void getOwnerBookingsPage_shouldPassCursorAndReturnNoNextCursorForLastPage() {
+        long userId = 1L;
+        BookingCursor cursor = new BookingCursor(LocalDateTime.now(), 5L);
+        List<BookingDto> bookings = List.of(BookingDto.builder().id(4L).start(LocalDateTime.now()).build());
+
+        when(bookingsPageableStorage.findDtoPageAfter(argThat(filter -> filter.getRole() == BookingRole.OWNER
+                        && filter.getItemId() == 7L), any(BookingCursor.class), eq(10))).thenReturn(bookings);
+
+        BookingPageDto result = bookingService.getOwnerBookingsPage("ALL", userId, 7L, cursor.encode(), 10);
+
+        assertEquals(1, result.getBookings().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getOwnerBookingsPage_shouldThrowInternalServerErrorForUnknownState() {
+        InternalServerErrorException exception = assertThrows(InternalServerErrorException.class, () ->
+                bookingService.getOwnerBookingsPage("UNKNOWN_STATE", 1L, null, "", 10));
+
+        assertEquals("Unknown state: UNKNOWN_STATE", exception.getMessage());
+    }
+
+    private static BookingFilter filter(BookingRole role, BookingState state, long userId) {
+        return argThat(filter -> filter.getRole() == role && filter.getState() == state
+                && filter.getUserId() == userId && filter.getItemId() == null && filter.getNow() != null);
+    }
 }
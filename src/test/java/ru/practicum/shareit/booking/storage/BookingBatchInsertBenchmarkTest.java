@@ -0,0 +1,90 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Вставка 100 000 бронирований с пакетами JDBC и без них. Без пакетов (размер пакета 1)
+ * каждая строка уходит в базу отдельным запросом, как было при IDENTITY-ключах.
+ * Запуск: mvn test -Dtest=BookingBatchInsertBenchmarkTest -Dshareit.benchmark=true
+ */
+@Slf4j
+@DataJpaTest
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+class BookingBatchInsertBenchmarkTest {
+    private static final int BOOKINGS = 100_000;
+    private static final int FLUSH_EVERY = 1_000;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Session session;
+    private Statistics statistics;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        session = entityManager.getEntityManager().unwrap(Session.class);
+        statistics = session.getSessionFactory().getStatistics();
+        User owner = entityManager.persist(User.builder().name("owner").email("owner@example.com").build());
+        booker = entityManager.persist(User.builder().name("booker").email("booker@example.com").build());
+        item = entityManager.persist(Item.builder()
+                .name("Дрель")
+                .description("Ударная дрель")
+                .available(true)
+                .user(owner)
+                .build());
+        entityManager.flush();
+    }
+
+    @Test
+    void compareSingleRowInsertsWithBatches() {
+        insertBookings(1);
+        long single = insertBookings(1);
+        insertBookings(50);
+        long batched = insertBookings(50);
+        log.info("{} бронирований: по одной строке {} мс, пакетами {} мс", BOOKINGS, single, batched);
+    }
+
+    private long insertBookings(int batchSize) {
+        entityManager.getEntityManager().createQuery("delete from Booking").executeUpdate();
+        session.setJdbcBatchSize(batchSize);
+        statistics.clear();
+        LocalDateTime start = LocalDateTime.now();
+        long begin = System.nanoTime();
+        for (int i = 0; i < BOOKINGS; i++) {
+            entityManager.persist(Booking.builder()
+                    .start(start.plusHours(i))
+                    .end(start.plusHours(i + 1))
+                    .item(item)
+                    .booker(booker)
+                    .status(Status.WAITING)
+                    .build());
+            if ((i + 1) % FLUSH_EVERY == 0) {
+                entityManager.flush();
+                entityManager.clear();
+                item = entityManager.find(Item.class, item.getId());
+                booker = entityManager.find(User.class, booker.getId());
+            }
+        }
+        entityManager.flush();
+        long elapsed = (System.nanoTime() - begin) / 1_000_000;
+        log.info("Размер пакета {}: {} мс, {} подготовленных запросов", batchSize, elapsed,
+                statistics.getPrepareStatementCount());
+        return elapsed;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingCursorTest {
+
+    @Test
+    void encodeAndDecode_shouldRoundTrip() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_000_000);
+        BookingCursor cursor = new BookingCursor(start, 42L);
+
+        BookingCursor decoded = BookingCursor.decode(cursor.encode());
+
+        assertEquals(start, decoded.getStart());
+        assertEquals(42L, decoded.getId());
+    }
+
+    @Test
+    void decode_shouldReturnNullForFirstPage() {
+        assertNull(BookingCursor.decode(""));
+        assertNull(BookingCursor.decode(null));
+    }
+
+    @Test
+    void decode_shouldThrowBadRequestForInvalidToken() {
+        assertThrows(BadRequestException.class, () -> BookingCursor.decode("not-a-cursor"));
+    }
+}
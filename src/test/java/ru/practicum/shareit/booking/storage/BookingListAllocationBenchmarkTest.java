@@ -0,0 +1,122 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.user.UserMapper;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Память, выделяемая на один список из 1 000 бронирований: сущности (тот же запрос с fetch join,
+ * которым списки строились до проекции) + BookingMapper против выборки колонок прямо в BookingDto. Считается счетчиком аллокаций потока.
+ * Запуск: mvn test -Dtest=BookingListAllocationBenchmarkTest -Dshareit.benchmark=true
+ */
+@Slf4j
+@DataJpaTest
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+class BookingListAllocationBenchmarkTest {
+    private static final int BOOKINGS = 1_000;
+    private static final int ITEMS = 50;
+    private static final int WARMUP = 20;
+    private static final int RUNS = 50;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private BookingsPageableStorage bookingsPageableStorage;
+
+    @Test
+    void compareEntityMappingWithDtoProjection() throws SQLException {
+        fillBookings();
+        BookingMapper mapper = new BookingMapper(new UserMapper(), new ItemMapper());
+        BookingFilter filter = BookingFilter.builder()
+                .role(BookingRole.OWNER)
+                .state(BookingState.ALL)
+                .userId(1L)
+                .now(LocalDateTime.now())
+                .build();
+        Pageable pageable = PageRequest.of(0, BOOKINGS);
+
+        long entities = measure(() -> mapper.transformBookingListToBookingDtoList(entityManager.getEntityManager()
+                .createQuery("select b from Booking b join fetch b.item i join fetch b.booker " +
+                        "where i.user.id = :ownerId order by b.start desc, b.id desc", Booking.class)
+                .setParameter("ownerId", filter.getUserId())
+                .setMaxResults(BOOKINGS)
+                .getResultList()));
+        long projection = measure(() -> bookingsPageableStorage.findDtoPage(filter, pageable));
+        log.info("{} бронирований: сущности {} КБ, проекция {} КБ ({}%)", BOOKINGS,
+                entities / 1024, projection / 1024, projection * 100 / entities);
+    }
+
+    private void fillBookings() throws SQLException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement users = connection.prepareStatement(
+                "INSERT INTO users (id, name, email) VALUES (1, 'owner', 'owner@example.com'), " +
+                        "(2, 'booker', 'booker@example.com')")) {
+            users.executeUpdate();
+        }
+        try (PreparedStatement items = connection.prepareStatement(
+                "INSERT INTO item (id, name, description, available, user_id) VALUES (?, ?, ?, true, 1)")) {
+            for (long id = 1; id <= ITEMS; id++) {
+                items.setLong(1, id);
+                items.setString(2, "Дрель " + id);
+                items.setString(3, "Ударная дрель " + id);
+                items.addBatch();
+            }
+            items.executeBatch();
+        }
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+        try (PreparedStatement bookings = connection.prepareStatement(
+                "INSERT INTO booking (id, start_time, end_time, item_id, booker_id, status) VALUES (?, ?, ?, ?, 2, 1)")) {
+            for (int i = 0; i < BOOKINGS; i++) {
+                bookings.setLong(1, i + 1);
+                bookings.setTimestamp(2, Timestamp.valueOf(start.plusDays(i)));
+                bookings.setTimestamp(3, Timestamp.valueOf(start.plusDays(i).plusHours(1)));
+                bookings.setLong(4, i % ITEMS + 1);
+                bookings.addBatch();
+            }
+            bookings.executeBatch();
+        }
+    }
+
+    private long measure(Supplier<Collection<BookingDto>> list) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            list.get();
+            entityManager.clear();
+        }
+        long allocated = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            list.get();
+            allocated += threads.getThreadAllocatedBytes(threadId) - before;
+            entityManager.clear();
+        }
+        return allocated / RUNS;
+    }
+}
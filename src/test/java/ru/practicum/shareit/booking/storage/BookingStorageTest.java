@@ -0,0 +1,119 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class BookingStorageTest {
+
+    @Autowired
+    private BookingStorage bookingStorage;
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+    private User booker;
+    private Item item;
+    private Item otherItem;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userStorage.save(User.builder().name("owner").email("owner@example.com").build());
+        booker = userStorage.save(User.builder().name("booker").email("booker@example.com").build());
+        item = itemStorage.save(Item.builder().name("Дрель").description("Ударная").available(true)
+                .user(owner).build());
+        otherItem = itemStorage.save(Item.builder().name("Пила").description("Ручная").available(true)
+                .user(owner).build());
+    }
+
+    @Test
+    void findLastNextAndActive_shouldReturnOneBookingPerItemRegardlessOfHistory() {
+        for (int i = 1; i <= 10; i++) {
+            save(item, now.minusDays(i + 1), now.minusDays(i), Status.APPROVED);
+            save(item, now.plusDays(i), now.plusDays(i + 1), Status.WAITING);
+        }
+        Booking last = save(item, now.minusHours(3), now.minusHours(1), Status.APPROVED);
+        Booking next = save(item, now.plusHours(1), now.plusHours(3), Status.WAITING);
+        Booking active = save(otherItem, now.minusHours(2), now.plusHours(2), Status.APPROVED);
+        save(otherItem, now.minusHours(1), now.plusHours(5), Status.APPROVED);
+        List<Long> itemIds = List.of(item.getId(), otherItem.getId());
+
+        assertEquals(List.of(last.getId()), ids(bookingStorage.findLastByItemIdIn(itemIds, now)));
+        assertEquals(List.of(next.getId()), ids(bookingStorage.findNextByItemIdIn(itemIds, now)));
+        assertEquals(List.of(active.getId()), ids(bookingStorage.findActiveByItemIdIn(itemIds, now)));
+    }
+
+    @Test
+    void findLastNextAndActive_shouldReturnNothingForItemsWithoutBookings() {
+        List<Long> itemIds = List.of(item.getId());
+
+        assertTrue(bookingStorage.findLastByItemIdIn(itemIds, now).isEmpty());
+        assertTrue(bookingStorage.findNextByItemIdIn(itemIds, now).isEmpty());
+        assertTrue(bookingStorage.findActiveByItemIdIn(itemIds, now).isEmpty());
+    }
+
+    @Test
+    void expireWaiting_shouldExpireOnlyWaitingBookings() {
+        Booking waiting = save(item, now.minusHours(1), now.plusHours(1), Status.WAITING);
+        Booking approved = save(item, now.minusHours(1), now.plusHours(1), Status.APPROVED);
+
+        List<Long> expired = bookingStorage.expireWaiting(List.of(waiting.getId(), approved.getId()));
+
+        assertEquals(List.of(waiting.getId()), expired);
+        entityManager.clear();
+        assertEquals(Status.EXPIRED, bookingStorage.findById(waiting.getId()).orElseThrow().getStatus());
+        assertEquals(Status.APPROVED, bookingStorage.findById(approved.getId()).orElseThrow().getStatus());
+        assertTrue(bookingStorage.expireWaiting(List.of(waiting.getId())).isEmpty());
+    }
+
+    @Test
+    void updateStatus_shouldChangeOnlyBookingsStillInExpectedStatus() {
+        Booking waiting = save(item, now.plusDays(1), now.plusDays(2), Status.WAITING);
+        Booking rejected = save(item, now.plusDays(3), now.plusDays(4), Status.REJECTED);
+        Booking expired = save(item, now.minusDays(1), now.plusDays(1), Status.EXPIRED);
+        List<Long> ids = List.of(waiting.getId(), rejected.getId(), expired.getId());
+
+        assertEquals(List.of(waiting.getId()), bookingStorage.lockIdsByStatus(ids, Status.WAITING));
+        assertEquals(1, bookingStorage.updateStatus(ids, Status.WAITING, Status.APPROVED));
+        assertEquals(0, bookingStorage.updateStatus(List.of(expired.getId()), Status.EXPIRED, Status.APPROVED));
+
+        assertEquals(Status.APPROVED, bookingStorage.findById(waiting.getId()).orElseThrow().getStatus());
+        assertEquals(1L, bookingStorage.findById(waiting.getId()).orElseThrow().getVersion());
+        assertEquals(Status.REJECTED, bookingStorage.findById(rejected.getId()).orElseThrow().getStatus());
+        assertEquals(Status.EXPIRED, bookingStorage.findById(expired.getId()).orElseThrow().getStatus());
+    }
+
+    private Booking save(Item bookingItem, LocalDateTime start, LocalDateTime end, Status status) {
+        return bookingStorage.save(Booking.builder()
+                .start(start)
+                .end(end)
+                .item(bookingItem)
+                .booker(booker)
+                .status(status)
+                .build());
+    }
+
+    private List<Long> ids(List<Booking> bookings) {
+        return bookings.stream().map(Booking::getId).collect(Collectors.toList());
+    }
+}
@@ -6,6 +6,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
@@ -17,6 +20,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class BookingsPageableStorageTest {
@@ -48,8 +52,8 @@ class BookingsPageableStorageTest {
         item = itemRepository.save(item);
 
         booking = new Booking();
-        booking.setStart(LocalDateTime.now().minusDays(1));
-        booking.setEnd(LocalDateTime.now().plusDays(1));
+        booking.setStart(LocalDateTime.now().minusDays(1).withNano(0));
+        booking.setEnd(LocalDateTime.now().plusDays(1).withNano(0));
         booking.setBooker(user);
         booking.setItem(item);
         booking.setStatus(Status.WAITING);
@@ -57,100 +61,166 @@ class BookingsPageableStorageTest {
     }
 
     @Test
-    void findAllByBookerIdOrderByStartDesc_shouldReturnBookings() {
+    void findDtoPage_shouldReturnBookerBookingsForEveryState() {
         Pageable pageable = PageRequest.of(0, 10);
-        List<Booking> bookings = bookingsPageableStorage.findAllByBookerIdOrderByStartDesc(user.getId(), pageable);
 
-        assertEquals(1, bookings.size());
-        assertEquals(booking.getId(), bookings.get(0).getId());
+        assertSingleBooking(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.BOOKER, BookingState.ALL, LocalDateTime.now()), pageable));
+        assertSingleBooking(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.BOOKER, BookingState.PAST, LocalDateTime.now().plusDays(2)), pageable));
+        assertSingleBooking(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.BOOKER, BookingState.FUTURE, LocalDateTime.now().minusDays(2)), pageable));
+        assertSingleBooking(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.BOOKER, BookingState.CURRENT, LocalDateTime.now()), pageable));
+        assertSingleBooking(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.BOOKER, BookingState.WAITING, LocalDateTime.now()), pageable));
+        assertTrue(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.BOOKER, BookingState.REJECTED, LocalDateTime.now()), pageable).isEmpty());
     }
 
     @Test
-    void findAllByEndBeforeAndBookerIdOrderByStartDesc_shouldReturnBookings() {
+    void findDtoPage_shouldReturnOwnerBookingsForEveryState() {
         Pageable pageable = PageRequest.of(0, 10);
-        List<Booking> bookings = bookingsPageableStorage.findAllByEndBeforeAndBookerIdOrderByStartDesc(
-                LocalDateTime.now().plusDays(2), user.getId(), pageable);
 
-        assertEquals(1, bookings.size());
-        assertEquals(booking.getId(), bookings.get(0).getId());
+        assertSingleBooking(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.OWNER, BookingState.ALL, LocalDateTime.now()), pageable));
+        assertSingleBooking(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.OWNER, BookingState.PAST, LocalDateTime.now().plusDays(2)), pageable));
+        assertSingleBooking(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.OWNER, BookingState.FUTURE, LocalDateTime.now().minusDays(2)), pageable));
+        assertSingleBooking(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.OWNER, BookingState.CURRENT, LocalDateTime.now()), pageable));
+        assertSingleBooking(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.OWNER, BookingState.WAITING, LocalDateTime.now()), pageable));
+        assertTrue(bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.OWNER, BookingState.PAST, LocalDateTime.now()), pageable).isEmpty());
     }
 
     @Test
-    void findAllByStartAfterAndBookerIdOrderByStartDesc_shouldReturnBookings() {
+    void findDtoPage_shouldFilterByItem() {
         Pageable pageable = PageRequest.of(0, 10);
-        List<Booking> bookings = bookingsPageableStorage.findAllByStartAfterAndBookerIdOrderByStartDesc(
-                LocalDateTime.now().minusDays(2), user.getId(), pageable);
-
-        assertEquals(1, bookings.size());
-        assertEquals(booking.getId(), bookings.get(0).getId());
+        BookingFilter byItem = BookingFilter.builder()
+                .role(BookingRole.OWNER)
+                .state(BookingState.ALL)
+                .userId(user.getId())
+                .itemId(item.getId())
+                .now(LocalDateTime.now())
+                .build();
+        BookingFilter byOtherItem = BookingFilter.builder()
+                .role(BookingRole.OWNER)
+                .state(BookingState.ALL)
+                .userId(user.getId())
+                .itemId(item.getId() + 1)
+                .now(LocalDateTime.now())
+                .build();
+
+        List<BookingDto> bookings = bookingsPageableStorage.findDtoPage(byItem, pageable);
+
+        assertSingleBooking(bookings);
+        assertEquals(item.getId(), bookings.get(0).getItem().getId());
+        assertEquals(user.getId(), bookings.get(0).getBooker().getId());
+        assertTrue(bookingsPageableStorage.findDtoPage(byOtherItem, pageable).isEmpty());
     }
 
     @Test
-    void findAllByEndAfterAndStartBeforeAndBookerIdOrderByStartDesc_shouldReturnBookings() {
-        Pageable pageable = PageRequest.of(0, 10);
-        List<Booking> bookings = bookingsPageableStorage.findAllByEndAfterAndStartBeforeAndBookerIdOrderByStartDesc(
-                LocalDateTime.now().plusHours(2), LocalDateTime.now().minusHours(2), user.getId(), pageable);
+    void findDtoPage_shouldSkipPreviousPages() {
+        User booker = new User();
+        booker.setName("Booker");
+        booker.setEmail("booker@example.com");
+        booker = userRepository.save(booker);
+        LocalDateTime start = LocalDateTime.now().plusDays(5);
+        saveBooking(booker, start, Status.WAITING);
+        Booking older = saveBooking(booker, start.minusDays(1), Status.WAITING);
+
+        List<BookingDto> bookings = bookingsPageableStorage.findDtoPage(BookingFilter.builder()
+                .role(BookingRole.BOOKER)
+                .state(BookingState.ALL)
+                .userId(booker.getId())
+                .now(LocalDateTime.now())
+                .build(), PageRequest.of(1, 1));
 
         assertEquals(1, bookings.size());
-        assertEquals(booking.getId(), bookings.get(0).getId());
+        assertEquals(older.getId(), bookings.get(0).getId());
     }
 
     @Test
-    void findAllByBookerIdAndStatusOrderByStartDesc_shouldReturnBookings() {
-        Pageable pageable = PageRequest.of(0, 10);
-        List<Booking> bookings = bookingsPageableStorage.findAllByBookerIdAndStatusOrderByStartDesc(
-                user.getId(), Status.WAITING, pageable);
-
-        assertEquals(1, bookings.size());
-        assertEquals(booking.getId(), bookings.get(0).getId());
+    void findDtoPageAfter_shouldSeekByStartAndId() {
+        User booker = new User();
+        booker.setName("Booker");
+        booker.setEmail("booker@example.com");
+        booker = userRepository.save(booker);
+        LocalDateTime start = LocalDateTime.now().plusDays(5).withNano(0);
+        Booking first = saveBooking(booker, start, Status.WAITING);
+        Booking second = saveBooking(booker, start, Status.WAITING);
+        Booking third = saveBooking(booker, start.minusDays(1), Status.REJECTED);
+        BookingFilter bookerFilter = BookingFilter.builder()
+                .role(BookingRole.BOOKER)
+                .state(BookingState.ALL)
+                .userId(booker.getId())
+                .now(LocalDateTime.now())
+                .build();
+
+        List<BookingDto> firstPage = bookingsPageableStorage.findDtoPageAfter(
+                bookerFilter, null, 2);
+        List<BookingDto> secondPage = bookingsPageableStorage.findDtoPageAfter(
+                bookerFilter, BookingCursor.of(firstPage.get(1)), 2);
+
+        assertEquals(List.of(second.getId(), first.getId()), List.of(firstPage.get(0).getId(), firstPage.get(1).getId()));
+        assertEquals(1, secondPage.size());
+        assertEquals(third.getId(), secondPage.get(0).getId());
     }
 
     @Test
-    void findAllByItemUserIdOrderByStartDesc_shouldReturnBookings() {
-        Pageable pageable = PageRequest.of(0, 10);
-        List<Booking> bookings = bookingsPageableStorage.findAllByItemUserIdOrderByStartDesc(user.getId(), pageable);
-
-        assertEquals(1, bookings.size());
-        assertEquals(booking.getId(), bookings.get(0).getId());
+    void findDtoPageAfter_shouldFilterOwnerBookingsByState() {
+        List<BookingDto> waiting = bookingsPageableStorage.findDtoPageAfter(
+                filter(BookingRole.OWNER, BookingState.WAITING, LocalDateTime.now()), null, 10);
+        List<BookingDto> current = bookingsPageableStorage.findDtoPageAfter(
+                filter(BookingRole.OWNER, BookingState.CURRENT, LocalDateTime.now()), null, 10);
+        List<BookingDto> future = bookingsPageableStorage.findDtoPageAfter(
+                filter(BookingRole.OWNER, BookingState.FUTURE, LocalDateTime.now()), null, 10);
+
+        assertEquals(1, waiting.size());
+        assertEquals(1, current.size());
+        assertEquals(0, future.size());
     }
 
     @Test
-    void findByEndBeforeAndItemUserIdOrderByStartDesc_shouldReturnBookings() {
-        Pageable pageable = PageRequest.of(0, 10);
-        List<Booking> bookings = bookingsPageableStorage.findByEndBeforeAndItemUserIdOrderByStartDesc(
-                LocalDateTime.now().plusDays(2), user.getId(), pageable);
+    void findDtoPage_shouldReturnFlatRowsMappedToDto() {
+        List<BookingDto> bookings = bookingsPageableStorage.findDtoPage(
+                filter(BookingRole.OWNER, BookingState.ALL, LocalDateTime.now()), PageRequest.of(0, 10));
 
         assertEquals(1, bookings.size());
-        assertEquals(booking.getId(), bookings.get(0).getId());
+        BookingDto dto = bookings.get(0);
+        assertEquals(booking.getId(), dto.getId());
+        assertEquals(booking.getStart(), dto.getStart());
+        assertEquals(Status.WAITING, dto.getStatus());
+        assertEquals(item.getId(), dto.getItem().getId());
+        assertEquals("Test Item", dto.getItem().getName());
+        assertEquals(user.getId(), dto.getBooker().getId());
+        assertEquals("test@example.com", dto.getBooker().getEmail());
     }
 
-    @Test
-    void findAllByItemUserIdAndStartAfterOrderByStartDesc_shouldReturnBookings() {
-        Pageable pageable = PageRequest.of(0, 10);
-        List<Booking> bookings = bookingsPageableStorage.findAllByItemUserIdAndStartAfterOrderByStartDesc(
-                user.getId(), LocalDateTime.now().minusDays(2), pageable);
-
-        assertEquals(1, bookings.size());
-        assertEquals(booking.getId(), bookings.get(0).getId());
+    private BookingFilter filter(BookingRole role, BookingState state, LocalDateTime now) {
+        return BookingFilter.builder()
+                .role(role)
+                .state(state)
+                .userId(user.getId())
+                .now(now)
+                .build();
     }
 
-    @Test
-    void findAllByEndAfterAndStartBeforeAndItemUserIdOrderByStartDesc_shouldReturnBookings() {
-        Pageable pageable = PageRequest.of(0, 10);
-        List<Booking> bookings = bookingsPageableStorage.findAllByEndAfterAndStartBeforeAndItemUserIdOrderByStartDesc(
-                LocalDateTime.now().plusHours(10), LocalDateTime.now().minusHours(10), user.getId(), pageable);
-
+    private void assertSingleBooking(List<BookingDto> bookings) {
         assertEquals(1, bookings.size());
         assertEquals(booking.getId(), bookings.get(0).getId());
     }
 
-    @Test
-    void findAllByItemUserIdAndStatusOrderByStartDesc_shouldReturnBookings() {
-        Pageable pageable = PageRequest.of(0, 10);
-        List<Booking> bookings = bookingsPageableStorage.findAllByItemUserIdAndStatusOrderByStartDesc(
-                user.getId(), Status.WAITING, pageable);
-
-        assertEquals(1, bookings.size());
-        assertEquals(booking.getId(), bookings.get(0).getId());
+    private Booking saveBooking(User booker, LocalDateTime start, Status status) {
+        Booking newBooking = new Booking();
+        newBooking.setStart(start);
+        newBooking.setEnd(start.plusHours(1));
+        newBooking.setBooker(booker);
+        newBooking.setItem(item);
+        newBooking.setStatus(status);
+        return bookingsPageableStorage.save(newBooking);
     }
 }
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.booking.summary;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingCount;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookingSummaryTest {
+    private static final long BOOKER = 1L;
+    private static final long OWNER = 2L;
+
+    @Mock
+    private BookingStorage storage;
+
+    private BookingSummary summary;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        summary = new BookingSummary(storage);
+    }
+
+    @Test
+    void rebuild_shouldSumGroupedCounts() {
+        List<BookingCount> bookerCounts = List.of(
+                count(BOOKER, Status.WAITING, 3, 2, 1, 0),
+                count(BOOKER, Status.APPROVED, 4, 0, 1, 3));
+        List<BookingCount> ownerCounts = List.of(count(OWNER, Status.REJECTED, 2, 1, 0, 1));
+        when(storage.countByBooker(any())).thenReturn(bookerCounts);
+        when(storage.countByOwner(any())).thenReturn(ownerCounts);
+
+        summary.rebuild(LocalDateTime.now());
+
+        assertEquals(BookingSummaryDto.builder()
+                .all(7).future(2).current(2).past(3).waiting(3).approved(4)
+                .build(), summary.getBookerSummary(BOOKER));
+        assertEquals(BookingSummaryDto.builder()
+                .all(2).future(1).past(1).rejected(2)
+                .build(), summary.getOwnerSummary(OWNER));
+        assertEquals(new BookingSummaryDto(), summary.getBookerSummary(OWNER));
+    }
+
+    @Test
+    void shouldFollowBookingThroughStatusesAndTime() {
+        Booking booking = booking();
+
+        summary.added(booking);
+        summary.statusChanged(booking, Status.WAITING, Status.APPROVED);
+        summary.started(BOOKER, OWNER);
+
+        BookingSummaryDto started = BookingSummaryDto.builder().all(1).current(1).approved(1).build();
+        assertEquals(started, summary.getBookerSummary(BOOKER));
+        assertEquals(started, summary.getOwnerSummary(OWNER));
+
+        summary.ended(BOOKER, OWNER);
+
+        assertEquals(BookingSummaryDto.builder().all(1).past(1).approved(1).build(),
+                summary.getBookerSummary(BOOKER));
+    }
+
+    @Test
+    void statusChanged_shouldMoveWaitingToExpired() {
+        summary.added(booking());
+        summary.statusChanged(BOOKER, OWNER, Status.WAITING, Status.EXPIRED);
+
+        assertEquals(BookingSummaryDto.builder().all(1).future(1).expired(1).build(),
+                summary.getOwnerSummary(OWNER));
+    }
+
+    private Booking booking() {
+        Item item = new Item();
+        item.setId(10L);
+        item.setUser(new User(OWNER, "owner", "owner@mail.ru", 0L));
+        return Booking.builder()
+                .id(100L)
+                .item(item)
+                .booker(new User(BOOKER, "booker", "booker@mail.ru", 0L))
+                .status(Status.WAITING)
+                .build();
+    }
+
+    private BookingCount count(long userId, Status status, long total, long future, long current, long past) {
+        BookingCount count = mock(BookingCount.class);
+        when(count.getUserId()).thenReturn(userId);
+        when(count.getStatus()).thenReturn(status);
+        when(count.getTotal()).thenReturn(total);
+        when(count.getFutureCount()).thenReturn(future);
+        when(count.getCurrentCount()).thenReturn(current);
+        when(count.getPastCount()).thenReturn(past);
+        return count;
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.context;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ActingUserArgumentResolverTest {
+    private final UserService userService = mock(UserService.class);
+    private final ActingUserArgumentResolver resolver = new ActingUserArgumentResolver(userService);
+
+    @Test
+    void supportsParameter_ShouldAcceptOnlyAnnotatedUser() throws Exception {
+        assertTrue(resolver.supportsParameter(parameter(0)));
+        assertFalse(resolver.supportsParameter(parameter(1)));
+        assertFalse(resolver.supportsParameter(parameter(2)));
+    }
+
+    @Test
+    void resolveArgument_ShouldReturnValidatedUser() throws Exception {
+        User user = User.builder().id(1L).name("user").build();
+        when(userService.validateUserDto(1L)).thenReturn(user);
+
+        assertSame(user, resolver.resolveArgument(parameter(0), null, request(" 1 "), null));
+    }
+
+    @Test
+    void resolveArgument_UnknownUser_ShouldThrowNotFound() throws Exception {
+        when(userService.validateUserDto(99L)).thenThrow(new NotFoundException("Пользователь с ID 99 не найден"));
+
+        assertThrows(NotFoundException.class, () -> resolver.resolveArgument(parameter(0), null, request("99"), null));
+    }
+
+    @Test
+    void resolveArgument_MissingOrInvalidHeader_ShouldThrowBadRequest() throws Exception {
+        MethodParameter parameter = parameter(0);
+
+        assertThrows(BadRequestException.class, () -> resolver.resolveArgument(parameter, null, request(null), null));
+        assertThrows(BadRequestException.class, () -> resolver.resolveArgument(parameter, null, request("abc"), null));
+        verifyNoInteractions(userService);
+    }
+
+    private ServletWebRequest request(String header) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (header != null) {
+            request.addHeader(ActingUserArgumentResolver.USER_HEADER, header);
+        }
+        return new ServletWebRequest(request);
+    }
+
+    private MethodParameter parameter(int index) throws NoSuchMethodException {
+        return new MethodParameter(Handler.class.getDeclaredMethod("handle", User.class, User.class, long.class),
+                index);
+    }
+
+    @SuppressWarnings("unused")
+    private static class Handler {
+        void handle(@ActingUser User actingUser, User other, @ActingUser long userId) {
+        }
+    }
+}
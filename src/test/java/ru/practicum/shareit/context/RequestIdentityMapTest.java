@@ -0,0 +1,103 @@
+package ru.practicum.shareit.context;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestIdentityMapTest {
+    private final RequestIdentityMap identityMap = new RequestIdentityMap();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void get_InsideRequest_ShouldLoadEntityOnce() throws Exception {
+        inRequest(() -> {
+            User first = identityMap.get(User.class, 1L, this::loadUser);
+            User second = identityMap.get(User.class, 1L, this::loadUser);
+            Item item = identityMap.get(Item.class, 1L, id -> Item.builder().id(id).build());
+
+            assertSame(first, second);
+            assertEquals(1L, item.getId());
+            assertEquals(1, loads.get());
+        });
+    }
+
+    @Test
+    void get_OutsideRequest_ShouldLoadEveryTime() {
+        identityMap.get(User.class, 1L, this::loadUser);
+        identityMap.get(User.class, 1L, this::loadUser);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_NextRequest_ShouldNotSeePreviousEntities() throws Exception {
+        inRequest(() -> identityMap.get(User.class, 1L, this::loadUser));
+        inRequest(() -> identityMap.get(User.class, 1L, this::loadUser));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_LoaderFails_ShouldNotRememberEntity() throws Exception {
+        inRequest(() -> {
+            assertThrows(NotFoundException.class, () -> identityMap.get(User.class, 1L, id -> {
+                loads.incrementAndGet();
+                throw new NotFoundException("Пользователь с ID 1 не найден");
+            }));
+            identityMap.get(User.class, 1L, this::loadUser);
+
+            assertEquals(2, loads.get());
+        });
+    }
+
+    @Test
+    void evict_ShouldReloadEntity() throws Exception {
+        inRequest(() -> {
+            identityMap.get(User.class, 1L, this::loadUser);
+            identityMap.evict(User.class, 1L);
+            identityMap.get(User.class, 1L, this::loadUser);
+
+            assertEquals(2, loads.get());
+        });
+    }
+
+    private User loadUser(long id) {
+        loads.incrementAndGet();
+        return User.builder().id(id).build();
+    }
+
+    private void inRequest(Runnable body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/items");
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse) {
+                RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+                try {
+                    body.run();
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }
+        };
+        new RequestIdentityFilter().doFilter(request, new MockHttpServletResponse(), chain);
+        assertNull(request.getAttribute(RequestIdentityMap.ATTRIBUTE));
+    }
+}
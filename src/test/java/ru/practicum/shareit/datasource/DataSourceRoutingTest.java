@@ -0,0 +1,93 @@
+package ru.practicum.shareit.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.dto.UserUpdatedDto;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Две H2 в памяти: основная база и реплика с собственными данными. По тому, чьи данные
+ * вернулись, видно, куда ушел запрос.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + DataSourceRoutingTest.PRIMARY_URL,
+        "shareit.datasource.routing.enabled=true",
+        "shareit.datasource.replicas[0].url=" + DataSourceRoutingTest.REPLICA_URL,
+        "shareit.datasource.replicas[0].username=sa",
+        "shareit.datasource.replicas[0].password=password",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+class DataSourceRoutingTest {
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+    private static final long USER_ID = 100L;
+
+    private static final JdbcTemplate PRIMARY = jdbc(PRIMARY_URL);
+    private static final JdbcTemplate REPLICA = jdbc(REPLICA_URL);
+
+    static {
+        // Реплика должна иметь схему до старта контекста: индексы строятся по ApplicationReadyEvent.
+        try (Connection connection = REPLICA.getDataSource().getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        for (JdbcTemplate database : new JdbcTemplate[]{PRIMARY, REPLICA}) {
+            database.update("DELETE FROM users WHERE id = ?", USER_ID);
+        }
+        PRIMARY.update("INSERT INTO users (id, name, email) VALUES (?, 'primary', 'primary@mail.ru')", USER_ID);
+        REPLICA.update("INSERT INTO users (id, name, email) VALUES (?, 'replica', 'replica@mail.ru')", USER_ID);
+    }
+
+    @Test
+    void readOnlyTransactionShouldReadFromReplica() {
+        assertEquals("replica", userService.getUserById(USER_ID).getName());
+    }
+
+    @Test
+    void readWriteTransactionShouldReadFromPrimary() {
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        String name = readWrite.execute(status -> userStorage.findById(USER_ID).orElseThrow().getName());
+
+        assertEquals("primary", name);
+    }
+
+    @Test
+    void writeShouldGoToPrimary() {
+        userService.updateUser(USER_ID, new UserUpdatedDto(null, "updated"), null);
+
+        assertEquals("updated", PRIMARY.queryForObject("SELECT name FROM users WHERE id = ?", String.class, USER_ID));
+        assertEquals("replica", REPLICA.queryForObject("SELECT name FROM users WHERE id = ?", String.class, USER_ID));
+    }
+
+    private static JdbcTemplate jdbc(String url) {
+        return new JdbcTemplate(new DriverManagerDataSource(url, "sa", "password"));
+    }
+}
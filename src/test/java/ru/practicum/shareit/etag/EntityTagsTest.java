@@ -0,0 +1,41 @@
+package ru.practicum.shareit.etag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityTagsTest {
+    private final EntityTags entityTags = new EntityTags(new ObjectMapper());
+
+    @Test
+    void expectedVersion_shouldParseVersionFromTag() {
+        assertEquals(7L, entityTags.expectedVersion("\"7-1a2b3c\""));
+        assertEquals(7L, entityTags.expectedVersion("W/\"7-1a2b3c\""));
+        assertEquals(7L, entityTags.expectedVersion("\"7\""));
+    }
+
+    @Test
+    void expectedVersion_shouldReturnNullWithoutCondition() {
+        assertNull(entityTags.expectedVersion(null));
+        assertNull(entityTags.expectedVersion("*"));
+    }
+
+    @Test
+    void expectedVersion_shouldRejectUnknownTag() {
+        assertThrows(PreconditionFailedException.class, () -> entityTags.expectedVersion("\"abc\""));
+    }
+
+    @Test
+    void tag_shouldChangeWithVersionAndContent() {
+        UserDto user = UserDto.builder().id(1L).name("name").email("mail@mail.ru").build();
+        String tag = entityTags.tag(user, 0L);
+
+        assertEquals(tag, entityTags.tag(user, 0L));
+        assertNotEquals(tag, entityTags.tag(user, 1L));
+        user.setName("other");
+        assertNotEquals(tag, entityTags.tag(user, 0L));
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.UnprocessableEntityException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyKeysTest {
+    private static final int THREADS = 16;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Map<String, String> BODY = Map.of("name", "Дрель");
+
+    @Test
+    void execute_shouldReplayFirstResponse() {
+        IdempotencyKeys keys = new IdempotencyKeys(MAPPER, 100, 60_000);
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseEntity<Integer> first = keys.execute("key", "items:1", BODY, calls::incrementAndGet);
+        ResponseEntity<Integer> second = keys.execute("key", "items:1", BODY, calls::incrementAndGet);
+
+        assertEquals(1, first.getBody());
+        assertNull(first.getHeaders().getFirst(IdempotencyKeys.REPLAYED_HEADER));
+        assertEquals(1, second.getBody());
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyKeys.REPLAYED_HEADER));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_shouldSeparateScopesAndSkipMissingKey() {
+        IdempotencyKeys keys = new IdempotencyKeys(MAPPER, 100, 60_000);
+        AtomicInteger calls = new AtomicInteger();
+
+        keys.execute("key", "items:1", BODY, calls::incrementAndGet);
+        keys.execute("key", "items:2", BODY, calls::incrementAndGet);
+        keys.execute(null, "items:1", BODY, calls::incrementAndGet);
+        keys.execute(null, "items:1", BODY, calls::incrementAndGet);
+
+        assertEquals(4, calls.get());
+        assertEquals(2, keys.size());
+    }
+
+    @Test
+    void execute_shouldNotRememberFailures() {
+        IdempotencyKeys keys = new IdempotencyKeys(MAPPER, 100, 60_000);
+
+        assertThrows(NotFoundException.class, () -> keys.execute("key", "items:1", BODY, () -> {
+            throw new NotFoundException("Пользователь с ID 1 не найден");
+        }));
+
+        assertEquals(5, keys.execute("key", "items:1", BODY, () -> 5).getBody());
+    }
+
+    @Test
+    void execute_shouldReleaseKeyWhenActionThrowsError() throws Exception {
+        IdempotencyKeys keys = new IdempotencyKeys(MAPPER, 100, 60_000);
+
+        assertThrows(StackOverflowError.class, () -> keys.execute("key", "items:1", BODY, () -> {
+            throw new StackOverflowError();
+        }));
+
+        assertEquals(0, keys.size());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals(5, executor.submit(() -> keys.execute("key", "items:1", BODY, () -> 5))
+                    .get(5, TimeUnit.SECONDS).getBody());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_shouldRejectSameKeyWithDifferentBody() {
+        IdempotencyKeys keys = new IdempotencyKeys(MAPPER, 100, 60_000);
+        AtomicInteger calls = new AtomicInteger();
+
+        keys.execute("key", "items:1", BODY, calls::incrementAndGet);
+
+        assertThrows(UnprocessableEntityException.class,
+                () -> keys.execute("key", "items:1", Map.of("name", "Пила"), calls::incrementAndGet));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_shouldRejectTooLongKey() {
+        IdempotencyKeys keys = new IdempotencyKeys(MAPPER, 100, 60_000);
+
+        assertThrows(BadRequestException.class, () -> keys.execute("k".repeat(256), "items:1", BODY, () -> 1));
+    }
+
+    @Test
+    void execute_shouldEvictExpiredAndOldestKeys() throws InterruptedException {
+        IdempotencyKeys bounded = new IdempotencyKeys(MAPPER, 2, 60_000);
+        bounded.execute("a", "items:1", BODY, () -> 1);
+        bounded.execute("b", "items:1", BODY, () -> 2);
+        bounded.execute("c", "items:1", BODY, () -> 3);
+
+        assertEquals(2, bounded.size());
+        assertEquals(4, bounded.execute("a", "items:1", BODY, () -> 4).getBody());
+
+        IdempotencyKeys expiring = new IdempotencyKeys(MAPPER, 100, 1);
+        expiring.execute("a", "items:1", BODY, () -> 1);
+        Thread.sleep(5);
+
+        assertEquals(2, expiring.execute("a", "items:1", BODY, () -> 2).getBody());
+    }
+
+    @Test
+    void execute_shouldRunConcurrentDuplicatesOnce() throws Exception {
+        IdempotencyKeys keys = new IdempotencyKeys(MAPPER, 100, 60_000);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<ResponseEntity<Integer>>> responses = new ArrayList<>();
+            responses.add(executor.submit(() -> keys.execute("key", "bookings:1", BODY, () -> {
+                started.countDown();
+                await(release);
+                return calls.incrementAndGet();
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < THREADS; i++) {
+                responses.add(executor.submit(() -> keys.execute("key", "bookings:1", BODY, calls::incrementAndGet)));
+            }
+            release.countDown();
+
+            for (Future<ResponseEntity<Integer>> response : responses) {
+                assertEquals(1, response.get(5, TimeUnit.SECONDS).getBody());
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -8,22 +8,32 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.idempotency.IdempotencyKeys;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
 
 import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(ItemController.class)
+@Import({EntityTags.class, IdempotencyKeys.class})
 public class ItemControllerTest {
 
     @Autowired
@@ -32,6 +42,9 @@ public class ItemControllerTest {
     @MockBean
     private ItemService itemService;
 
+    @MockBean
+    private UserService userService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -43,6 +56,8 @@ public class ItemControllerTest {
 
     @BeforeEach
     void setUp() {
+        Mockito.when(userService.validateUserDto(anyLong()))
+                .thenAnswer(invocation -> User.builder().id(invocation.getArgument(0)).build());
         itemDto = ItemDto.builder()
                 .id(1L)
                 .name("Item 1")
@@ -88,9 +103,40 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.available").value(itemDto.getAvailable()));
     }
 
+    @Test
+    void getItems_WithoutUserHeader_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/items"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(itemService);
+    }
+
+    @Test
+    void createItem_RepeatedIdempotencyKey_ShouldReplayResponse() throws Exception {
+        Mockito.when(itemService.createItem(anyLong(), Mockito.any(ItemCreatedDto.class))).thenReturn(itemDto);
+
+        mockMvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                        .header(IdempotencyKeys.HEADER, "item-retry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(itemCreatedDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyKeys.REPLAYED_HEADER));
+        mockMvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                        .header(IdempotencyKeys.HEADER, "item-retry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(itemCreatedDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyKeys.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.id").value(itemDto.getId()));
+
+        Mockito.verify(itemService, Mockito.times(1)).createItem(anyLong(), Mockito.any(ItemCreatedDto.class));
+    }
+
     @Test
     void updateItem_ValidData_ShouldReturnOk() throws Exception {
-        Mockito.when(itemService.updateItem(anyLong(), anyLong(), Mockito.any(ItemUpdatedDto.class))).thenReturn(itemDto);
+        Mockito.when(itemService.updateItem(anyLong(), anyLong(), Mockito.any(ItemUpdatedDto.class), isNull())).thenReturn(itemDto);
 
         mockMvc.perform(patch("/items/{itemId}", 1L)
                         .header("X-Sharer-User-Id", 1L)
@@ -103,6 +149,43 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.available").value(itemDto.getAvailable()));
     }
 
+    @Test
+    void updateItem_WithIfMatch_ShouldPassVersionToService() throws Exception {
+        itemDto.setVersion(4L);
+        Mockito.when(itemService.updateItem(anyLong(), anyLong(), Mockito.any(ItemUpdatedDto.class), eq(3L)))
+                .thenReturn(itemDto);
+
+        mockMvc.perform(patch("/items/{itemId}", 1L)
+                        .header("X-Sharer-User-Id", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"3-abc\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(itemUpdatedDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"4-")));
+    }
+
+    @Test
+    void getItemById_MatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        itemDto.setVersion(0L);
+        Mockito.when(itemService.getItemById(anyLong(), anyLong())).thenReturn(itemDto);
+
+        String etag = mockMvc.perform(get("/items/{itemId}", 1L)
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/items/{itemId}", 1L)
+                        .header("X-Sharer-User-Id", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        itemDto.setComments(List.of());
+        mockMvc.perform(get("/items/{itemId}", 1L)
+                        .header("X-Sharer-User-Id", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void getItemById_ExistingId_ShouldReturnOk() throws Exception {
         Mockito.when(itemService.getItemById(anyLong(), anyLong())).thenReturn(itemDto);
@@ -156,6 +239,18 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[0].available").value(itemDto.getAvailable()));
     }
 
+    @Test
+    void searchItemByText_WithoutTextOrUserHeader_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/items/search")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/items/search")
+                        .param("text", "Item"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(itemService);
+    }
+
     @Test
     public void addCommentShouldReturnCreatedComment() throws Exception {
         long userId = 1L;
@@ -5,10 +5,12 @@ import org.junit.jupiter.api.Test;
 import ru.practicum.shareit.item.dto.CommentCreatedDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -81,4 +83,21 @@ public class CommentMapperTest {
         assertThat(commentDtos.get(1).getAuthorName()).isEqualTo("Author2");
         assertThat(commentDtos.get(1).getCreated()).isEqualTo(comment2.getCreated());
     }
+
+    @Test
+    public void testTransformCommentsListToCommentsDtoByItemId() {
+        User author = User.builder().id(1L).name("Author").build();
+        Item item1 = Item.builder().id(1L).build();
+        Item item2 = Item.builder().id(2L).build();
+        Comment comment1 = Comment.builder().id(1L).text("Comment1").author(author).item(item1).build();
+        Comment comment2 = Comment.builder().id(2L).text("Comment2").author(author).item(item2).build();
+        Comment comment3 = Comment.builder().id(3L).text("Comment3").author(author).item(item1).build();
+
+        Map<Long, List<CommentDto>> commentsByItemId =
+                commentMapper.transformCommentsListToCommentsDtoByItemId(List.of(comment1, comment2, comment3));
+
+        assertThat(commentsByItemId).hasSize(2);
+        assertThat(commentsByItemId.get(1L)).extracting(CommentDto::getId).containsExactly(1L, 3L);
+        assertThat(commentsByItemId.get(2L)).extracting(CommentDto::getId).containsExactly(2L);
+    }
 }
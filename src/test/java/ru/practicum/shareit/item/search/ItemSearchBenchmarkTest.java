@@ -0,0 +1,107 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemPageableStorage;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Сравнение триграммного индекса с поиском через JPA LIKE на 1 000 000 вещей.
+ * Запуск: mvn test -Dtest=ItemSearchBenchmarkTest -Dshareit.benchmark=true
+ */
+@Slf4j
+@DataJpaTest
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+class ItemSearchBenchmarkTest {
+    private static final int ITEMS = 1_000_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int RUNS = 20;
+    private static final List<String> WORDS = List.of("дрель", "пила", "молоток", "отвертка", "рубанок",
+            "лестница", "палатка", "велосипед", "аккумуляторная", "ручная", "ударная", "садовая", "большой", "набор");
+    private static final List<String> QUERIES = List.of("дрел", "аккумуляторная", "садов", "велосипед");
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private ItemPageableStorage itemPageableStorage;
+
+    @Test
+    void compareTrigramIndexWithLikeQuery() throws SQLException {
+        ItemTrigramIndex trigramIndex = new ItemTrigramIndex(itemStorage);
+        fillItems(trigramIndex);
+        JpaItemSearchEngine likeEngine = new JpaItemSearchEngine(itemPageableStorage);
+        Pageable pageable = PageRequest.of(0, 10);
+
+        for (String query : QUERIES) {
+            double like = measure(() -> likeEngine.search(query, pageable));
+            double trigram = measure(() -> trigramIndex.search(query, pageable));
+            log.info("Запрос '{}': LIKE {} мс, TRIGRAM {} мс", query, like, trigram);
+        }
+    }
+
+    private void fillItems(ItemTrigramIndex trigramIndex) throws SQLException {
+        Random random = new Random(42);
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement user = connection.prepareStatement(
+                "INSERT INTO users (id, name, email) VALUES (1, 'owner', 'owner@example.com')")) {
+            user.executeUpdate();
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO item (id, name, description, available, user_id) VALUES (?, ?, ?, ?, 1)")) {
+            for (long id = 1; id <= ITEMS; id++) {
+                Item item = Item.builder()
+                        .id(id)
+                        .name(words(random, 2) + " " + id)
+                        .description(words(random, 6))
+                        .available(random.nextInt(10) > 0)
+                        .build();
+                statement.setLong(1, item.getId());
+                statement.setString(2, item.getName());
+                statement.setString(3, item.getDescription());
+                statement.setBoolean(4, item.getAvailable());
+                statement.addBatch();
+                trigramIndex.index(item);
+                if (id % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+        }
+    }
+
+    private String words(Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(WORDS.get(random.nextInt(WORDS.size())));
+        }
+        return builder.toString();
+    }
+
+    private double measure(Supplier<List<Item>> search) {
+        search.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            search.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / RUNS;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ItemTokenIndexTest {
+    private ItemStorage itemStorage;
+    private ItemTokenIndex index;
+
+    @BeforeEach
+    void setUp() {
+        itemStorage = mock(ItemStorage.class);
+        index = new ItemTokenIndex(itemStorage);
+    }
+
+    @Test
+    void search_shouldMatchNameAndDescriptionIgnoringCase() {
+        index.index(item(1L, "Дрель", "Простая дрель", true));
+        index.index(item(2L, "Отвертка", "Аккумуляторная отвертка", true));
+        index.index(item(3L, "Молоток", "Большой молоток", true));
+
+        assertThat(index.findIds("ДРЕЛЬ")).containsExactly(1L);
+        assertThat(index.findIds("аккумуляторная")).containsExactly(2L);
+        assertThat(index.findIds("дрел")).containsExactly(1L);
+    }
+
+    @Test
+    void search_shouldMatchWholePhraseOnly() {
+        index.index(item(1L, "Дрель аккумуляторная", "Мощная", true));
+
+        assertThat(index.findIds("дрель аккум")).containsExactly(1L);
+        assertThat(index.findIds("аккумуляторная дрель")).isEmpty();
+    }
+
+    @Test
+    void search_shouldSkipUnavailableItems() {
+        index.index(item(1L, "Дрель", "Дрель", false));
+        index.index(item(2L, "Дрель", "Дрель", true));
+
+        assertThat(index.findIds("дрель")).containsExactly(2L);
+    }
+
+    @Test
+    void index_shouldReplaceOldTokensOnUpdate() {
+        index.index(item(1L, "Дрель", "Дрель", true));
+        index.index(item(1L, "Пила", "Пила", true));
+
+        assertThat(index.findIds("дрель")).isEmpty();
+        assertThat(index.findIds("пила")).containsExactly(1L);
+    }
+
+    @Test
+    void remove_shouldDropItem() {
+        index.index(item(1L, "Дрель", "Дрель", true));
+        index.remove(1L);
+
+        assertThat(index.findIds("дрель")).isEmpty();
+    }
+
+    @Test
+    void rebuild_shouldLoadItemsFromStorage() {
+        when(itemStorage.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(item(1L, "", "дрель", true), item(2L, "Дрель", "", true)));
+
+        index.rebuild();
+
+        assertThat(index.findIds("дрель")).containsExactly(1L, 2L);
+        verify(itemStorage).findAllByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class));
+    }
+
+    @Test
+    void rebuild_shouldContinueAfterLastIdOfFullPage() {
+        List<Item> firstPage = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            firstPage.add(item(id, "Пила", "", true));
+        }
+        when(itemStorage.findAllByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(firstPage);
+        when(itemStorage.findAllByIdGreaterThanOrderByIdAsc(eq(1000L), any(Pageable.class)))
+                .thenReturn(List.of(item(1001L, "Дрель", "", true)));
+
+        index.rebuild();
+
+        assertThat(index.findIds("дрель")).containsExactly(1001L);
+        assertThat(index.findIds("пила")).hasSize(1000);
+    }
+
+    @Test
+    void search_shouldHydrateOnlyRequestedPageInIndexOrder() {
+        Item item1 = item(1L, "Дрель", "", true);
+        Item item2 = item(2L, "Дрель", "", true);
+        Item item3 = item(3L, "Дрель", "", true);
+        index.index(item1);
+        index.index(item2);
+        index.index(item3);
+        when(itemStorage.findAllById(List.of(3L))).thenReturn(List.of(item3));
+
+        List<Item> items = index.search("дрель", PageRequest.of(1, 2));
+
+        assertThat(items).containsExactly(item3);
+        verify(itemStorage).findAllById(List.of(3L));
+    }
+
+    private Item item(Long id, String name, String description, boolean available) {
+        return Item.builder().id(id).name(name).description(description).available(available).build();
+    }
+}
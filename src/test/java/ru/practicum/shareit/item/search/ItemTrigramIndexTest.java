@@ -0,0 +1,77 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ItemTrigramIndexTest {
+    private ItemTrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemTrigramIndex(mock(ItemStorage.class));
+    }
+
+    @Test
+    void findIds_shouldMatchWordFragments() {
+        index.index(item(1L, "Дрель", "Простая дрель", true));
+        index.index(item(2L, "Отвертка", "Аккумуляторная отвертка", true));
+
+        assertThat(index.findIds("дрел")).containsExactly(1L);
+        assertThat(index.findIds("РЕЛ")).containsExactly(1L);
+        assertThat(index.findIds("умулятор")).containsExactly(2L);
+        assertThat(index.findIds("пила")).isEmpty();
+    }
+
+    @Test
+    void findIds_shouldRankNameHitsAboveDescriptionHits() {
+        index.index(item(1L, "Набор", "Дрель и биты", true));
+        index.index(item(2L, "Дрель", "Ударная", true));
+
+        assertThat(index.findIds("дрель")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void findIds_shouldRankTighterMatchesFirst() {
+        index.index(item(1L, "Дрель мощная аккумуляторная", "", true));
+        index.index(item(2L, "Дрель аккумуляторная", "", true));
+        index.index(item(3L, "Аккумуляторная дрель с кейсом", "", true));
+
+        assertThat(index.findIds("дрель аккумуляторная")).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void findIds_shouldRequireEveryTerm() {
+        index.index(item(1L, "Дрель", "Ударная", true));
+        index.index(item(2L, "Дрель", "Простая", true));
+
+        assertThat(index.findIds("дрель удар")).containsExactly(1L);
+    }
+
+    @Test
+    void findIds_shouldSupportShortQueries() {
+        index.index(item(1L, "Ёж", "", true));
+        index.index(item(2L, "Ножницы", "", true));
+
+        assertThat(index.findIds("ёж")).containsExactly(1L);
+        assertThat(index.findIds("но")).containsExactly(2L);
+    }
+
+    @Test
+    void findIds_shouldSkipUnavailableAndRemovedItems() {
+        index.index(item(1L, "Дрель", "", false));
+        index.index(item(2L, "Дрель", "", true));
+        index.index(item(3L, "Дрель", "", true));
+        index.remove(3L);
+
+        assertThat(index.findIds("дрель")).containsExactly(2L);
+    }
+
+    private Item item(Long id, String name, String description, boolean available) {
+        return Item.builder().id(id).name(name).description(description).available(available).build();
+    }
+}
@@ -5,30 +5,41 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.shareit.booking.dto.BookingItemDto;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.context.RequestIdentityMap;
 import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.storage.CommentStorage;
 import ru.practicum.shareit.item.storage.ItemPageableStorage;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.feed.RequestFeed;
+import ru.practicum.shareit.request.matching.RequestMatchingEngine;
 import ru.practicum.shareit.request.storage.RequestStorage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -64,6 +75,18 @@ public class ItemServiceImplTest {
     @Mock
     private ItemPageableStorage itemPageableStorage;
 
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+
+    @Mock
+    private RequestMatchingEngine requestMatchingEngine;
+
+    @Mock
+    private RequestFeed requestFeed;
+
+    @Spy
+    private RequestIdentityMap identityMap = new RequestIdentityMap();
+
     @InjectMocks
     private ItemServiceImpl itemService;
 
@@ -109,6 +132,43 @@ public class ItemServiceImplTest {
 
         assertThat(result.getId()).isEqualTo(1L);
         verify(itemStorage).save(item);
+        verify(itemSearchEngine).index(savedItem);
+    }
+
+    @Test
+    public void testCreateItemIndexesOnlyAfterCommit() {
+        User user = User.builder().id(1L).build();
+        ItemCreatedDto itemCreatedDto = new ItemCreatedDto();
+        Item savedItem = Item.builder().id(1L).user(user).build();
+        when(userService.validateUserDto(1L)).thenReturn(user);
+        when(itemMapper.transformItemCreatedDtoToItem(itemCreatedDto)).thenReturn(item);
+        when(itemStorage.save(item)).thenReturn(savedItem);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemService.createItem(1L, itemCreatedDto);
+
+            verify(itemSearchEngine, never()).index(any());
+            verify(requestMatchingEngine, never()).indexItem(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(itemSearchEngine).index(savedItem);
+        verify(requestMatchingEngine).indexItem(savedItem);
+    }
+
+    @Test
+    public void testCreateItemWithMissingRequestThrowsNotFound() {
+        ItemCreatedDto itemCreatedDto = new ItemCreatedDto();
+        itemCreatedDto.setRequestId(5L);
+        when(userService.validateUserDto(1L)).thenReturn(User.builder().id(1L).build());
+        when(itemMapper.transformItemCreatedDtoToItem(itemCreatedDto)).thenReturn(item);
+        when(requestStorage.findById(5L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> itemService.createItem(1L, itemCreatedDto));
+        verify(itemStorage, never()).save(any());
     }
 
     @Test
@@ -123,13 +183,33 @@ public class ItemServiceImplTest {
 
         when(itemStorage.findById(itemId)).thenReturn(Optional.of(itemFromDb));
         when(itemMapper.transformItemUpdatedDtoToItem(itemUpdatedDto)).thenReturn(updatedItem);
-        when(itemStorage.save(itemFromDb)).thenReturn(itemFromDb);
+        when(itemStorage.saveAndFlush(itemFromDb)).thenReturn(itemFromDb);
         when(itemMapper.transformItemToItemDto(itemFromDb)).thenReturn(ItemDto.builder().id(itemId).name("UpdatedName").build());
 
-        ItemDto result = itemService.updateItem(userId, itemId, itemUpdatedDto);
+        ItemDto result = itemService.updateItem(userId, itemId, itemUpdatedDto, null);
 
         assertThat(result.getName()).isEqualTo("UpdatedName");
-        verify(itemStorage).save(itemFromDb);
+        verify(itemStorage).saveAndFlush(itemFromDb);
+        verify(itemSearchEngine).index(itemFromDb);
+    }
+
+    @Test
+    public void testUpdateItemWithStaleVersion() {
+        long userId = 1L;
+        long itemId = 1L;
+        ItemUpdatedDto itemUpdatedDto = new ItemUpdatedDto();
+        itemUpdatedDto.setName("UpdatedName");
+
+        Item itemFromDb = Item.builder().id(itemId).name("OldName").version(5L)
+                .user(User.builder().id(userId).build()).build();
+
+        when(itemStorage.findById(itemId)).thenReturn(Optional.of(itemFromDb));
+        when(itemMapper.transformItemUpdatedDtoToItem(itemUpdatedDto)).thenReturn(Item.builder().name("UpdatedName").build());
+
+        assertThrows(PreconditionFailedException.class, () ->
+                itemService.updateItem(userId, itemId, itemUpdatedDto, 4L));
+        assertThat(itemFromDb.getName()).isEqualTo("OldName");
+        verify(itemStorage, never()).saveAndFlush(any());
     }
 
     @Test
@@ -212,6 +292,7 @@ public class ItemServiceImplTest {
 
         assertThat(result.getId()).isEqualTo(itemId);
         verify(itemStorage).deleteById(itemId);
+        verify(itemSearchEngine).remove(itemId);
     }
 
     @Test
@@ -244,6 +325,7 @@ public class ItemServiceImplTest {
 
         assertThat(result).isEmpty();
         verify(itemPageableStorage, never()).findAllByNameOrDescriptionContainingIgnoreCaseAndAvailableTrue(anyString(), anyString(), any(Pageable.class));
+        verify(itemSearchEngine, never()).search(anyString(), any(Pageable.class));
     }
 
     @Test
@@ -265,18 +347,18 @@ public class ItemServiceImplTest {
         List<ItemDto> itemDtos = List.of(itemDto1, itemDto2);
 
         when(userService.validateUserDto(userId)).thenReturn(User.builder().id(userId).build());
-        when(itemPageableStorage.findAllByNameOrDescriptionContainingIgnoreCaseAndAvailableTrue(searchText, searchText, pageable)).thenReturn(items);
-        when(itemMapper.transformListItemToListItemDto(items)).thenReturn(itemDtos);
+        when(itemSearchEngine.search(searchText, pageable)).thenReturn(items);
+        when(itemMapper.transformItemToItemDto(item1)).thenReturn(itemDto1);
+        when(itemMapper.transformItemToItemDto(item2)).thenReturn(itemDto2);
 
         Collection<ItemDto> result = itemService.searchItemByName(searchText, userId, start, size);
 
-        assertThat(result).containsExactlyInAnyOrderElementsOf(itemDtos);
+        assertThat(result).containsExactlyElementsOf(itemDtos);
         verify(userService).validateUserDto(userId);
-        verify(itemPageableStorage).findAllByNameOrDescriptionContainingIgnoreCaseAndAvailableTrue(searchText, searchText, pageable);
-        verify(itemMapper).transformListItemToListItemDto(items);
+        verify(itemSearchEngine).search(searchText, pageable);
+        verify(commentStorage, times(1)).findAllByItemIdIn(List.of(1L, 2L));
     }
 
-
     @Test
     public void testAddComment() {
         long userId = 1L;
@@ -323,10 +405,8 @@ public class ItemServiceImplTest {
 
     @Test
     public void testGetLastAndNextBookingsWithNoBookings() {
-        when(bookingStorage.findAllByItemIdAndEndBeforeOrderByEndDesc(item.getId(), now)).thenReturn(Collections.emptyList());
-        when(bookingStorage.findAllByItemIdAndStartAfter(item.getId(), now)).thenReturn(Collections.emptyList());
-        when(commentStorage.findAllByItemId(item.getId())).thenReturn(Collections.emptyList());
-        when(commentMapper.transformCommentsListToCommentsDtoList(Collections.emptyList())).thenReturn(Collections.emptyList());
+        when(commentStorage.findAllByItemIdIn(List.of(item.getId()))).thenReturn(Collections.emptyList());
+        when(commentMapper.transformCommentsListToCommentsDtoByItemId(Collections.emptyList())).thenReturn(Map.of());
         when(itemMapper.transformItemToItemDto(item)).thenReturn(ItemDto.builder().id(item.getId()).build());
 
         ItemDto itemDto = itemService.getLastAndNextBookings(item, user.getId());
@@ -336,26 +416,28 @@ public class ItemServiceImplTest {
         assertThat(itemDto.getNextBooking()).isNull();
         assertThat(itemDto.getComments()).isEmpty();
 
-        verify(bookingStorage).findAllByItemIdAndEndBeforeOrderByEndDesc(eq(item.getId()), any(LocalDateTime.class));
-        verify(bookingStorage).findAllByItemIdAndStartAfter(eq(item.getId()), any(LocalDateTime.class));
-        verify(commentStorage).findAllByItemId(item.getId());
-        verify(commentMapper).transformCommentsListToCommentsDtoList(Collections.emptyList());
+        verify(bookingStorage).findLastByItemIdIn(eq(List.of(item.getId())), any(LocalDateTime.class));
+        verify(bookingStorage).findNextByItemIdIn(eq(List.of(item.getId())), any(LocalDateTime.class));
+        verify(bookingStorage).findActiveByItemIdIn(eq(List.of(item.getId())), any(LocalDateTime.class));
+        verify(commentStorage).findAllByItemIdIn(List.of(item.getId()));
+        verify(commentMapper).transformCommentsListToCommentsDtoByItemId(Collections.emptyList());
         verify(itemMapper).transformItemToItemDto(item);
     }
 
     @Test
     public void testGetLastAndNextBookingsWithBookings() {
-        Booking lastBooking = Booking.builder().id(1L).item(item).build();
-        Booking nextBooking = Booking.builder().id(2L).item(item).build();
-        List<Booking> lastBookings = List.of(lastBooking);
-        List<Booking> nextBookings = List.of(nextBooking);
+        Booking lastBooking = Booking.builder().id(1L).start(now.minusDays(3)).end(now.minusDays(2)).item(item).build();
+        Booking nextBooking = Booking.builder().id(2L).start(now.plusDays(1)).end(now.plusDays(2)).item(item).build();
         Comment comment = Comment.builder().id(1L).text("Great!").build();
         List<Comment> comments = List.of(comment);
 
-        when(bookingStorage.findAllByItemIdAndEndBeforeOrderByEndDesc(eq(item.getId()), any(LocalDateTime.class))).thenReturn(lastBookings);
-        when(bookingStorage.findAllByItemIdAndStartAfter(eq(item.getId()), any(LocalDateTime.class))).thenReturn(nextBookings);
-        when(commentStorage.findAllByItemId(item.getId())).thenReturn(comments);
-        when(commentMapper.transformCommentsListToCommentsDtoList(comments)).thenReturn(List.of(CommentDto.builder().id(1L).text("Great!").build()));
+        when(bookingStorage.findLastByItemIdIn(eq(List.of(item.getId())), any(LocalDateTime.class)))
+                .thenReturn(List.of(lastBooking));
+        when(bookingStorage.findNextByItemIdIn(eq(List.of(item.getId())), any(LocalDateTime.class)))
+                .thenReturn(List.of(nextBooking));
+        when(commentStorage.findAllByItemIdIn(List.of(item.getId()))).thenReturn(comments);
+        when(commentMapper.transformCommentsListToCommentsDtoByItemId(comments))
+                .thenReturn(Map.of(item.getId(), List.of(CommentDto.builder().id(1L).text("Great!").build())));
         when(itemMapper.transformItemToItemDto(item)).thenReturn(ItemDto.builder().id(item.getId()).build());
         when(bookingMapper.transformBookingToBookingItemDto(lastBooking)).thenReturn(BookingItemDto.builder().id(1L).build());
         when(bookingMapper.transformBookingToBookingItemDto(nextBooking)).thenReturn(BookingItemDto.builder().id(2L).build());
@@ -367,10 +449,9 @@ public class ItemServiceImplTest {
         assertThat(itemDto.getNextBooking().getId()).isEqualTo(2L);
         assertThat(itemDto.getComments()).hasSize(1).extracting(CommentDto::getText).containsExactly("Great!");
 
-        verify(bookingStorage).findAllByItemIdAndEndBeforeOrderByEndDesc(eq(item.getId()), any(LocalDateTime.class));
-        verify(bookingStorage).findAllByItemIdAndStartAfter(eq(item.getId()), any(LocalDateTime.class));
-        verify(commentStorage).findAllByItemId(item.getId());
-        verify(commentMapper).transformCommentsListToCommentsDtoList(comments);
+        verify(bookingStorage, never()).findActiveByItemIdIn(anyCollection(), any());
+        verify(commentStorage).findAllByItemIdIn(List.of(item.getId()));
+        verify(commentMapper).transformCommentsListToCommentsDtoByItemId(comments);
         verify(itemMapper).transformItemToItemDto(item);
         verify(bookingMapper).transformBookingToBookingItemDto(lastBooking);
         verify(bookingMapper).transformBookingToBookingItemDto(nextBooking);
@@ -379,15 +460,14 @@ public class ItemServiceImplTest {
     @Test
     public void testGetLastAndNextBookingsWithActiveBookings() {
         Booking activeBooking = Booking.builder().id(1L).start(now.minusDays(1)).end(now.plusDays(1)).item(item).build();
-        List<Booking> activeBookings = List.of(activeBooking);
         Comment comment = Comment.builder().id(1L).text("Great!").build();
         List<Comment> comments = List.of(comment);
 
-        when(bookingStorage.findAllByItemIdAndEndBeforeOrderByEndDesc(eq(item.getId()), any(LocalDateTime.class))).thenReturn(Collections.emptyList());
-        when(bookingStorage.findAllByItemIdAndStartAfter(eq(item.getId()), any(LocalDateTime.class))).thenReturn(Collections.emptyList());
-        when(bookingStorage.findAllByEndAfterAndStartBeforeAndItemUserIdOrderByStartDesc(any(LocalDateTime.class), any(LocalDateTime.class), eq(user.getId()))).thenReturn(activeBookings);
-        when(commentStorage.findAllByItemId(item.getId())).thenReturn(comments);
-        when(commentMapper.transformCommentsListToCommentsDtoList(comments)).thenReturn(List.of(CommentDto.builder().id(1L).text("Great!").build()));
+        when(bookingStorage.findActiveByItemIdIn(eq(List.of(item.getId())), any(LocalDateTime.class)))
+                .thenReturn(List.of(activeBooking));
+        when(commentStorage.findAllByItemIdIn(List.of(item.getId()))).thenReturn(comments);
+        when(commentMapper.transformCommentsListToCommentsDtoByItemId(comments))
+                .thenReturn(Map.of(item.getId(), List.of(CommentDto.builder().id(1L).text("Great!").build())));
         when(itemMapper.transformItemToItemDto(item)).thenReturn(ItemDto.builder().id(item.getId()).build());
         when(bookingMapper.transformBookingToBookingItemDto(activeBooking)).thenReturn(BookingItemDto.builder().id(1L).build());
 
@@ -398,14 +478,47 @@ public class ItemServiceImplTest {
         assertThat(itemDto.getNextBooking()).isNull();
         assertThat(itemDto.getComments()).hasSize(1).extracting(CommentDto::getText).containsExactly("Great!");
 
-        verify(bookingStorage).findAllByItemIdAndEndBeforeOrderByEndDesc(eq(item.getId()), any(LocalDateTime.class));
-        verify(bookingStorage).findAllByItemIdAndStartAfter(eq(item.getId()), any(LocalDateTime.class));
-        verify(bookingStorage).findAllByEndAfterAndStartBeforeAndItemUserIdOrderByStartDesc(any(LocalDateTime.class), any(LocalDateTime.class), eq(user.getId()));
-        verify(commentStorage).findAllByItemId(item.getId());
-        verify(commentMapper).transformCommentsListToCommentsDtoList(comments);
+        verify(bookingStorage).findActiveByItemIdIn(eq(List.of(item.getId())), any(LocalDateTime.class));
+        verify(commentStorage).findAllByItemIdIn(List.of(item.getId()));
+        verify(commentMapper).transformCommentsListToCommentsDtoByItemId(comments);
         verify(itemMapper).transformItemToItemDto(item);
         verify(bookingMapper).transformBookingToBookingItemDto(activeBooking);
     }
 
-}
+    @Test
+    public void testGetLastAndNextBookingsSkipsBookingsForNotOwner() {
+        when(itemMapper.transformItemToItemDto(item)).thenReturn(ItemDto.builder().id(item.getId()).build());
+
+        ItemDto itemDto = itemService.getLastAndNextBookings(item, 99L);
+
+        assertThat(itemDto.getLastBooking()).isNull();
+        assertThat(itemDto.getNextBooking()).isNull();
+        verifyNoInteractions(bookingStorage);
+    }
 
+    @Test
+    public void testGetItemsLoadsBookingsWithFixedQueriesForAnyPageSize() {
+        long userId = 1L;
+        for (int size : new int[]{1, 10, 100}) {
+            reset(bookingStorage, commentStorage);
+            List<Item> items = new ArrayList<>();
+            for (long id = 1; id <= size; id++) {
+                items.add(Item.builder().id(id).user(user).build());
+            }
+            Pageable pageable = PageRequest.of(0, size);
+            when(itemPageableStorage.findAllByUserId(userId, pageable)).thenReturn(items);
+            when(itemMapper.transformItemToItemDto(any(Item.class))).thenAnswer(invocation ->
+                    ItemDto.builder().id(invocation.<Item>getArgument(0).getId()).build());
+
+            Collection<ItemDto> result = itemService.getItems(userId, 0, size);
+
+            assertThat(result).hasSize(size);
+            verify(bookingStorage, times(1)).findLastByItemIdIn(anyCollection(), any());
+            verify(bookingStorage, times(1)).findNextByItemIdIn(anyCollection(), any());
+            verify(bookingStorage, times(1)).findActiveByItemIdIn(anyCollection(), any());
+            verifyNoMoreInteractions(bookingStorage);
+            verify(commentStorage, times(1)).findAllByItemIdIn(anyCollection());
+            verifyNoMoreInteractions(commentStorage);
+        }
+    }
+}
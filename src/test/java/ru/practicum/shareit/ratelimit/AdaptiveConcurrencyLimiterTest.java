@@ -0,0 +1,70 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void tryAcquire_ShouldRejectAboveLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(concurrency(2, 1, 10));
+
+        assertEquals(1, limiter.tryAcquire());
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+
+        limiter.release(2, 0);
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(3, limiter.accepted());
+        assertEquals(1, limiter.rejected());
+    }
+
+    @Test
+    void release_StableLatencyUnderFullLoad_ShouldGrowLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(concurrency(10, 1, 100));
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.release(limiter.limit(), 1_000_000);
+        }
+
+        assertTrue(limiter.limit() > 10);
+        assertTrue(limiter.limit() <= 100);
+    }
+
+    @Test
+    void release_GrowingLatency_ShouldShrinkLimitDownToMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(concurrency(50, 5, 100));
+        limiter.tryAcquire();
+        limiter.release(50, 1_000_000);
+
+        for (int i = 0; i < 200; i++) {
+            limiter.tryAcquire();
+            limiter.release(50, 100_000_000);
+        }
+
+        assertEquals(5, limiter.limit());
+    }
+
+    @Test
+    void release_LowUtilization_ShouldNotGrowLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(concurrency(20, 1, 100));
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.release(1, 1_000_000);
+        }
+
+        assertEquals(20, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    private RateLimitProperties.Concurrency concurrency(int initial, int min, int max) {
+        RateLimitProperties.Concurrency concurrency = new RateLimitProperties.Concurrency();
+        concurrency.setInitialLimit(initial);
+        concurrency.setMinLimit(min);
+        concurrency.setMaxLimit(max);
+        return concurrency;
+    }
+}
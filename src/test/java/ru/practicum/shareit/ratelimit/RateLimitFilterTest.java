@@ -0,0 +1,96 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void doFilter_UserOverLimit_ShouldReturnTooManyRequests() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(new RateLimiter(properties()), null, objectMapper);
+
+        MockHttpServletResponse first = perform(filter, "GET", "/items/search", "1");
+        MockHttpServletResponse second = perform(filter, "GET", "/items/search", "1");
+
+        assertEquals(HttpStatus.OK.value(), first.getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), second.getStatus());
+        assertEquals("1", second.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(second.getContentAsString().contains("error"));
+    }
+
+    @Test
+    void doFilter_OtherUserOrEndpointClass_ShouldPass() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(new RateLimiter(properties()), null, objectMapper);
+        perform(filter, "GET", "/items/search", "1");
+
+        assertEquals(HttpStatus.OK.value(), perform(filter, "GET", "/items/search", "2").getStatus());
+        assertEquals(HttpStatus.OK.value(), perform(filter, "GET", "/items/1", "1").getStatus());
+        assertEquals(HttpStatus.OK.value(), perform(filter, "POST", "/items", "1").getStatus());
+    }
+
+    @Test
+    void doFilter_ConcurrencyLimitReached_ShouldShedLoad() throws Exception {
+        RateLimitProperties.Concurrency concurrency = new RateLimitProperties.Concurrency();
+        concurrency.setInitialLimit(1);
+        concurrency.setMinLimit(1);
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(concurrency);
+        RateLimitFilter filter = new RateLimitFilter(new RateLimiter(new RateLimitProperties()), concurrencyLimiter,
+                objectMapper);
+        concurrencyLimiter.tryAcquire();
+
+        MockHttpServletResponse response = perform(filter, "GET", "/bookings", "1");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, concurrencyLimiter.rejected());
+        assertEquals(1, concurrencyLimiter.inFlight());
+    }
+
+    @Test
+    void doFilter_ShouldReleaseConcurrencySlotAfterRequest() throws Exception {
+        AdaptiveConcurrencyLimiter concurrencyLimiter =
+                new AdaptiveConcurrencyLimiter(new RateLimitProperties.Concurrency());
+        RateLimitFilter filter = new RateLimitFilter(new RateLimiter(new RateLimitProperties()), concurrencyLimiter,
+                objectMapper);
+
+        perform(filter, "GET", "/bookings", "1");
+
+        assertEquals(0, concurrencyLimiter.inFlight());
+        assertEquals(1, concurrencyLimiter.accepted());
+    }
+
+    @Test
+    void endpointClass_ShouldClassifyRequests() {
+        assertEquals(EndpointClass.SEARCH, EndpointClass.of("GET", "/items/search"));
+        assertEquals(EndpointClass.SEARCH, EndpointClass.of("GET", "/requests/all"));
+        assertEquals(EndpointClass.LIST, EndpointClass.of("GET", "/bookings"));
+        assertEquals(EndpointClass.LIST, EndpointClass.of("GET", "/bookings/owner"));
+        assertEquals(EndpointClass.READ, EndpointClass.of("GET", "/bookings/1"));
+        assertEquals(EndpointClass.WRITE, EndpointClass.of("PATCH", "/bookings/1"));
+    }
+
+    private MockHttpServletResponse perform(RateLimitFilter filter, String method, String path, String user)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.addHeader(RateLimitFilter.USER_HEADER, user);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private RateLimitProperties properties() {
+        RateLimitProperties properties = new RateLimitProperties();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            properties.getLimits().put(endpointClass, new RateLimitProperties.Limit(1, 1));
+        }
+        return properties;
+    }
+}
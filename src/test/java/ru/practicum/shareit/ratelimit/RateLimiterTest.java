@@ -0,0 +1,88 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenReject() {
+        RateLimiter limiter = new RateLimiter(properties(10, 5));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("1", EndpointClass.SEARCH, 0));
+        }
+        long wait = limiter.tryAcquire("1", EndpointClass.SEARCH, 0);
+
+        assertEquals(SECOND / 10, wait);
+        assertEquals(5, limiter.accepted());
+        assertEquals(1, limiter.rejected());
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillAtConfiguredRate() {
+        RateLimiter limiter = new RateLimiter(properties(10, 1));
+
+        assertEquals(0, limiter.tryAcquire("1", EndpointClass.SEARCH, 0));
+        assertTrue(limiter.tryAcquire("1", EndpointClass.SEARCH, SECOND / 20) > 0);
+        assertEquals(0, limiter.tryAcquire("1", EndpointClass.SEARCH, SECOND / 10));
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepSeparateBucketsPerUserAndEndpointClass() {
+        RateLimiter limiter = new RateLimiter(properties(1, 1));
+
+        assertEquals(0, limiter.tryAcquire("1", EndpointClass.SEARCH, 0));
+        assertTrue(limiter.tryAcquire("1", EndpointClass.SEARCH, 0) > 0);
+        assertEquals(0, limiter.tryAcquire("2", EndpointClass.SEARCH, 0));
+        assertEquals(0, limiter.tryAcquire("1", EndpointClass.READ, 0));
+    }
+
+    @Test
+    void tryAcquire_ShouldEvictOnlyFullBucketsWhenOverCapacity() {
+        RateLimitProperties properties = properties(1, 1);
+        properties.setMaxBuckets(2);
+        RateLimiter limiter = new RateLimiter(properties);
+        limiter.tryAcquire("1", EndpointClass.SEARCH, 0);
+        limiter.tryAcquire("2", EndpointClass.SEARCH, SECOND + SECOND / 2);
+
+        limiter.tryAcquire("3", EndpointClass.SEARCH, 2 * SECOND);
+
+        assertEquals(2, limiter.size());
+        assertTrue(limiter.tryAcquire("2", EndpointClass.SEARCH, 2 * SECOND) > 0);
+    }
+
+    @Test
+    void tryAcquire_ConcurrentCallers_ShouldNotExceedBurst() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(properties(1, 100));
+        AtomicInteger passed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.submit(() -> {
+                if (limiter.tryAcquire("1", EndpointClass.SEARCH, 0) == 0) {
+                    passed.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, passed.get());
+        assertEquals(900, limiter.rejected());
+    }
+
+    private RateLimitProperties properties(double perSecond, int burst) {
+        RateLimitProperties properties = new RateLimitProperties();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            properties.getLimits().put(endpointClass, new RateLimitProperties.Limit(perSecond, burst));
+        }
+        return properties;
+    }
+}
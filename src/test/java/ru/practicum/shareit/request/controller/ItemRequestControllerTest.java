@@ -12,14 +12,20 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
 
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -36,11 +42,16 @@ class ItemRequestControllerTest {
     @MockBean
     private RequestService requestService;
 
+    @MockBean
+    private UserService userService;
+
     private ItemRequestDto itemRequestDto;
     private ItemRequestCreateDto itemRequestCreateDto;
 
     @BeforeEach
     void setUp() {
+        Mockito.when(userService.validateUserDto(anyLong()))
+                .thenAnswer(invocation -> User.builder().id(invocation.getArgument(0)).build());
         itemRequestDto = ItemRequestDto.builder()
                 .id(1L)
                 .description("Test Description")
@@ -91,6 +102,20 @@ class ItemRequestControllerTest {
                 .andExpect(jsonPath("$[0].description").value(itemRequestDto.getDescription()));
     }
 
+    @Test
+    void getRequestByCursor() throws Exception {
+        Mockito.when(requestService.getRequestsPage(1L, "abc", 1))
+                .thenReturn(new ItemRequestPageDto(List.of(itemRequestDto), "next"));
+
+        mockMvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("cursor", "abc")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ItemRequestController.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].id").value(itemRequestDto.getId()));
+    }
+
     @Test
     void getRequestById() throws Exception {
         Mockito.when(requestService.getRequestById(anyLong(), anyLong()))
@@ -102,4 +127,22 @@ class ItemRequestControllerTest {
                 .andExpect(jsonPath("$.id").value(itemRequestDto.getId()))
                 .andExpect(jsonPath("$.description").value(itemRequestDto.getDescription()));
     }
+
+    @Test
+    void getMatches() throws Exception {
+        RequestMatchDto matchDto = RequestMatchDto.builder()
+                .requestId(1L)
+                .description("Нужна дрель")
+                .score(1)
+                .itemIds(List.of(5L, 7L))
+                .build();
+        Mockito.when(requestService.getMatches(2L)).thenReturn(List.of(matchDto));
+
+        mockMvc.perform(get("/requests/matches")
+                        .header("X-Sharer-User-Id", 2L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].requestId").value(1L))
+                .andExpect(jsonPath("$[0].itemIds[0]").value(5L))
+                .andExpect(jsonPath("$[0].itemIds[1]").value(7L));
+    }
 }
@@ -0,0 +1,152 @@
+package ru.practicum.shareit.request.feed;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.RequestCursor;
+import ru.practicum.shareit.request.storage.RequestStorage;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class RequestFeedTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private RequestStorage storage;
+    private ItemRequestMapper mapper;
+    private RequestFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        storage = mock(RequestStorage.class);
+        mapper = mock(ItemRequestMapper.class);
+        when(mapper.transformItemRequestListToItemRequestDtoList(anyList())).thenAnswer(invocation -> {
+            List<ItemRequest> requests = invocation.getArgument(0);
+            return requests.stream().map(RequestFeedTest::dto).collect(Collectors.toList());
+        });
+        when(storage.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+        feed = new RequestFeed(storage, mapper, 4);
+        feed.rebuild();
+    }
+
+    @Test
+    void find_shouldSkipOwnRequestsAndKeepNewestFirst() {
+        add(request(1L, 10L, NOW));
+        add(request(2L, 20L, NOW.plusMinutes(1)));
+        add(request(3L, 10L, NOW.plusMinutes(2)));
+
+        assertThat(ids(feed.find(20L, null, 0, 10))).containsExactly(3L, 1L);
+        assertThat(ids(feed.find(10L, null, 0, 10))).containsExactly(2L);
+        assertThat(ids(feed.find(30L, null, 1, 1))).containsExactly(2L);
+    }
+
+    @Test
+    void find_shouldContinueAfterCursor() {
+        add(request(1L, 10L, NOW));
+        add(request(2L, 10L, NOW));
+        add(request(3L, 10L, NOW.plusMinutes(1)));
+
+        List<ItemRequestDto> first = feed.find(20L, null, 0, 2);
+        List<ItemRequestDto> second = feed.find(20L, RequestCursor.of(first.get(1)), 0, 2);
+
+        assertThat(ids(first)).containsExactly(3L, 2L);
+        assertThat(ids(second)).containsExactly(1L);
+    }
+
+    @Test
+    void add_shouldKeepOrderWhenSavedOutOfOrder() {
+        add(request(2L, 10L, NOW.plusMinutes(1)));
+        add(request(1L, 10L, NOW));
+
+        assertThat(ids(feed.find(20L, null, 0, 10))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void find_shouldFallBackToStorageWhenOlderRequestsWereEvicted() {
+        for (long id = 1; id <= 5; id++) {
+            add(request(id, 10L, NOW.plusMinutes(id)));
+        }
+
+        assertThat(ids(feed.find(20L, null, 0, 4))).containsExactly(5L, 4L, 3L, 2L);
+        assertThat(feed.find(20L, null, 0, 5)).isNull();
+    }
+
+    @Test
+    void rebuild_shouldLoadNewestRequests() {
+        List<ItemRequest> newest = List.of(request(2L, 10L, NOW.plusMinutes(1)), request(1L, 10L, NOW));
+        when(storage.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(newest));
+
+        feed.rebuild();
+
+        assertThat(ids(feed.find(20L, null, 0, 10))).containsExactly(2L, 1L);
+        verify(mapper).transformItemRequestListToItemRequestDtoList(newest);
+    }
+
+    @Test
+    void evict_shouldReloadItemsOnNextRead() {
+        ItemRequest request = request(1L, 10L, NOW);
+        add(request);
+        when(storage.findAllById(List.of(1L))).thenReturn(List.of(request));
+
+        feed.evict(1L);
+        feed.find(20L, null, 0, 10);
+        feed.find(20L, null, 0, 10);
+
+        verify(storage, times(1)).findAllById(List.of(1L));
+    }
+
+    @Test
+    void find_shouldNotKeepItemsLoadedBeforeConcurrentEvict() {
+        ItemRequest request = request(1L, 10L, NOW);
+        add(request);
+        feed.evict(1L);
+        when(storage.findAllById(List.of(1L))).thenAnswer(invocation -> {
+            feed.evict(1L);
+            return List.of(request);
+        }).thenReturn(List.of(request));
+
+        assertThat(feed.find(20L, null, 0, 10)).isNull();
+        assertThat(ids(feed.find(20L, null, 0, 10))).containsExactly(1L);
+        assertThat(ids(feed.find(20L, null, 0, 10))).containsExactly(1L);
+
+        verify(storage, times(2)).findAllById(List.of(1L));
+    }
+
+    @Test
+    void removeRequester_shouldDropTheirRequests() {
+        add(request(1L, 10L, NOW));
+        add(request(2L, 11L, NOW.plusMinutes(1)));
+
+        feed.removeRequester(10L);
+
+        assertThat(ids(feed.find(20L, null, 0, 10))).containsExactly(2L);
+        assertThat(feed.size()).isEqualTo(1);
+    }
+
+    private void add(ItemRequest request) {
+        feed.add(request, dto(request));
+    }
+
+    private static List<Long> ids(List<ItemRequestDto> dtos) {
+        return dtos.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
+    }
+
+    private static ItemRequestDto dto(ItemRequest request) {
+        return new ItemRequestDto(request.getId(), request.getDescription(), request.getCreated(), List.of());
+    }
+
+    private static ItemRequest request(Long id, Long requesterId, LocalDateTime created) {
+        return new ItemRequest(id, "Запрос " + id, created, new User(requesterId, null, null, 0L));
+    }
+}
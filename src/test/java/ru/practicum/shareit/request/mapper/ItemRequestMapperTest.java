@@ -17,8 +17,15 @@ import ru.practicum.shareit.user.model.User;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ItemRequestMapperTest {
@@ -69,4 +76,35 @@ public class ItemRequestMapperTest {
         assertEquals(itemRequest.getCreated(), requestDto.getCreated());
         assertEquals(itemDtoList.size(), requestDto.getItems().size());
     }
+
+    @Test
+    public void testTransformItemRequestListLoadsItemsWithOneQuery() {
+        ItemRequest first = ItemRequest.builder().id(1L).description("First").created(LocalDateTime.now()).build();
+        ItemRequest second = ItemRequest.builder().id(2L).description("Second").created(LocalDateTime.now()).build();
+        ItemRequest third = ItemRequest.builder().id(3L).description("Third").created(LocalDateTime.now()).build();
+        Item firstItem = Item.builder().id(10L).itemRequest(first).build();
+        Item secondItem = Item.builder().id(11L).itemRequest(first).build();
+        Item thirdItem = Item.builder().id(12L).itemRequest(third).build();
+
+        when(itemStorage.findAllByItemRequestIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(firstItem, secondItem, thirdItem));
+        when(itemMapper.transformItemToItemDto(any(Item.class)))
+                .thenAnswer(invocation -> ItemDto.builder().id(invocation.<Item>getArgument(0).getId()).build());
+
+        List<ItemRequestDto> result = itemRequestMapper.transformItemRequestListToItemRequestDtoList(
+                List.of(first, second, third));
+
+        assertEquals(List.of(1L, 2L, 3L), result.stream().map(ItemRequestDto::getId).collect(Collectors.toList()));
+        assertEquals(2, result.get(0).getItems().size());
+        assertEquals(0, result.get(1).getItems().size());
+        assertEquals(12L, result.get(2).getItems().get(0).getId());
+        verify(itemStorage, times(1)).findAllByItemRequestIdIn(anyCollection());
+        verify(itemStorage, never()).findAllByItemRequestId(anyLong());
+    }
+
+    @Test
+    public void testTransformEmptyItemRequestListSkipsQuery() {
+        assertEquals(0, itemRequestMapper.transformItemRequestListToItemRequestDtoList(List.of()).size());
+        verify(itemStorage, never()).findAllByItemRequestIdIn(anyCollection());
+    }
 }
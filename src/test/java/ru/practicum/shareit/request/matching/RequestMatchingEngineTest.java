@@ -0,0 +1,156 @@
+package ru.practicum.shareit.request.matching;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.RequestStorage;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestMatchingEngineTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private ItemStorage itemStorage;
+    private RequestStorage requestStorage;
+    private RequestMatchingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        itemStorage = mock(ItemStorage.class);
+        requestStorage = mock(RequestStorage.class);
+        engine = new RequestMatchingEngine(itemStorage, requestStorage);
+    }
+
+    @Test
+    void addRequest_shouldRankItemsBySharedWords() {
+        engine.indexItem(item(1L, 10L, "Дрель", "Простая дрель", true));
+        engine.indexItem(item(2L, 10L, "Дрель аккумуляторная", "Дрель с аккумулятором", true));
+        engine.indexItem(item(3L, 11L, "Молоток", "Большой молоток", true));
+
+        List<Long> candidates = engine.addRequest(request(1L, 20L, "Нужна аккумуляторная дрель", NOW));
+
+        assertThat(candidates).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void addRequest_shouldMatchWordForms() {
+        engine.indexItem(item(1L, 10L, "Дрель", "", true));
+
+        assertThat(engine.addRequest(request(1L, 20L, "Ищу дрели", NOW))).containsExactly(1L);
+    }
+
+    @Test
+    void addRequest_shouldSkipRequesterItemsAndUnavailableItems() {
+        engine.indexItem(item(1L, 20L, "Дрель", "", true));
+        engine.indexItem(item(2L, 10L, "Дрель", "", false));
+
+        assertThat(engine.addRequest(request(1L, 20L, "Нужна дрель", NOW))).isEmpty();
+    }
+
+    @Test
+    void indexItem_shouldReturnMatchingRequests() {
+        engine.addRequest(request(1L, 20L, "Нужна дрель", NOW));
+        engine.addRequest(request(2L, 21L, "Нужен молоток", NOW));
+
+        assertThat(engine.indexItem(item(1L, 10L, "Дрель", "Ударная", true))).containsExactly(1L);
+    }
+
+    @Test
+    void findMatches_shouldGroupOwnerItemsByRequest() {
+        engine.addRequest(request(1L, 20L, "Нужна дрель", NOW.minusDays(1)));
+        engine.addRequest(request(2L, 21L, "Нужна аккумуляторная дрель", NOW));
+        engine.addRequest(request(3L, 22L, "Нужен молоток", NOW));
+        engine.indexItem(item(1L, 10L, "Дрель", "", true));
+        engine.indexItem(item(2L, 10L, "Дрель аккумуляторная", "", true));
+        engine.indexItem(item(3L, 11L, "Молоток", "", true));
+
+        List<RequestMatch> matches = engine.findMatches(10L);
+
+        assertThat(matches).extracting(RequestMatch::getRequestId).containsExactly(2L, 1L);
+        assertThat(matches.get(0).getItemIds()).containsExactly(2L, 1L);
+        assertThat(matches.get(0).getScore()).isEqualTo(2);
+        assertThat(matches.get(1).getItemIds()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void indexItem_shouldDropMatchesWhenItemBecomesUnavailable() {
+        engine.addRequest(request(1L, 20L, "Нужна дрель", NOW));
+        engine.indexItem(item(1L, 10L, "Дрель", "", true));
+
+        engine.indexItem(item(1L, 10L, "Дрель", "", false));
+
+        assertThat(engine.findMatches(10L)).isEmpty();
+    }
+
+    @Test
+    void removeItem_shouldDropMatches() {
+        engine.addRequest(request(1L, 20L, "Нужна дрель", NOW));
+        engine.indexItem(item(1L, 10L, "Дрель", "", true));
+
+        engine.removeItem(1L);
+
+        assertThat(engine.findMatches(10L)).isEmpty();
+    }
+
+    @Test
+    void removeOwner_shouldDropUserItemsAndRequests() {
+        engine.addRequest(request(1L, 20L, "Нужна дрель", NOW));
+        engine.addRequest(request(2L, 10L, "Нужен молоток", NOW));
+        engine.indexItem(item(1L, 10L, "Дрель", "", true));
+        engine.indexItem(item(2L, 20L, "Молоток", "", true));
+
+        engine.removeOwner(10L);
+
+        assertThat(engine.findMatches(10L)).isEmpty();
+        assertThat(engine.findMatches(20L)).isEmpty();
+        assertThat(engine.addRequest(request(3L, 21L, "Нужна дрель", NOW))).isEmpty();
+    }
+
+    @Test
+    void rebuild_shouldLoadItemsAndRequestsFromStorage() {
+        when(itemStorage.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(item(1L, 10L, "Дрель", "", true)));
+        when(requestStorage.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(request(1L, 20L, "Нужна дрель", NOW)));
+
+        engine.rebuild();
+
+        assertThat(engine.findMatches(10L)).extracting(RequestMatch::getRequestId).containsExactly(1L);
+        verify(itemStorage).findAllByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class));
+        verify(requestStorage).findAllByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class));
+    }
+
+    @Test
+    void stem_shouldCutShortEndingOnly() {
+        assertThat(RequestMatchingEngine.stem("пила")).isEqualTo("пила");
+        assertThat(RequestMatchingEngine.stem("дрель")).isEqualTo("дрел");
+        assertThat(RequestMatchingEngine.stem("отвертку")).isEqualTo("отверт");
+    }
+
+    private Item item(Long id, Long ownerId, String name, String description, boolean available) {
+        return Item.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .available(available)
+                .user(new User(ownerId, null, null, 0L))
+                .build();
+    }
+
+    private ItemRequest request(Long id, Long requesterId, String description, LocalDateTime created) {
+        return new ItemRequest(id, description, created, new User(requesterId, null, null, 0L));
+    }
+}
@@ -7,26 +7,33 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.feed.RequestFeed;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.matching.RequestMatch;
+import ru.practicum.shareit.request.matching.RequestMatchingEngine;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.OffsetPageRequest;
+import ru.practicum.shareit.request.storage.RequestCursor;
 import ru.practicum.shareit.request.storage.RequestStorage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.any;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RequestServiceImplTest {
@@ -40,6 +47,12 @@ public class RequestServiceImplTest {
     @Mock
     private ItemRequestMapper itemRequestMapper;
 
+    @Mock
+    private RequestMatchingEngine matchingEngine;
+
+    @Mock
+    private RequestFeed requestFeed;
+
     @InjectMocks
     private RequestServiceImpl requestService;
 
@@ -50,11 +63,11 @@ public class RequestServiceImplTest {
 
     @Test
     public void testCreateRequest() {
-        User mockUser = new User(1L, "John Doe", "john.doe@example.com");
+        User mockUser = new User(1L, "John Doe", "john.doe@example.com", 0L);
         when(userService.validateUserDto(ArgumentMatchers.anyLong())).thenReturn(mockUser);
 
         ItemRequestCreateDto requestCreateDto = new ItemRequestCreateDto("Test request");
-        ItemRequest itemRequest = new ItemRequest(1L, "Test request", LocalDateTime.now(), mockUser, new ArrayList<>());
+        ItemRequest itemRequest = new ItemRequest(1L, "Test request", LocalDateTime.now(), mockUser);
         when(itemRequestMapper.transformItemRequestCreateDtoToItemRequest(requestCreateDto, mockUser))
                 .thenReturn(itemRequest);
 
@@ -70,23 +83,86 @@ public class RequestServiceImplTest {
         assertEquals("Test request", createdDto.getDescription());
         assertNotNull(createdDto.getCreated());
         assertEquals(0, createdDto.getItems().size());
+        verify(matchingEngine).addRequest(itemRequest);
+        verify(requestFeed).add(itemRequest, expectedDto);
+    }
+
+    @Test
+    public void testGetRequestsByParameterFromFeed() {
+        List<ItemRequestDto> cached = List.of(new ItemRequestDto(3L, "Cached", LocalDateTime.now(), List.of()));
+        when(requestFeed.find(1L, null, 10, 10)).thenReturn(cached);
+
+        List<ItemRequestDto> requestDtos = requestService.getRequestsByParameter(1L, 10, 10);
+
+        assertEquals(cached, requestDtos);
+        verify(storage, never()).findAllByRequesterIdNotOrderByCreatedDescIdDesc(ArgumentMatchers.anyLong(), any());
+    }
+
+    @Test
+    public void testGetRequestsPageFromFeed() {
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<ItemRequestDto> cached = List.of(
+                new ItemRequestDto(3L, "Request 3", created, List.of()),
+                new ItemRequestDto(2L, "Request 2", created, List.of()));
+        when(requestFeed.find(1L, null, 0, 2)).thenReturn(cached);
+
+        ItemRequestPageDto page = requestService.getRequestsPage(1L, "", 2);
+
+        assertEquals(cached, page.getRequests());
+        RequestCursor next = RequestCursor.decode(page.getNextCursor());
+        assertEquals(created, next.getCreated());
+        assertEquals(2L, next.getId());
+    }
+
+    @Test
+    public void testGetRequestsPageFallsBackToStorage() {
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 12, 0);
+        String cursor = new RequestCursor(created, 5L).encode();
+        List<ItemRequest> older = List.of(new ItemRequest(4L, "Request 4", created, new User()));
+        when(requestFeed.find(ArgumentMatchers.eq(1L), any(RequestCursor.class), ArgumentMatchers.eq(0L),
+                ArgumentMatchers.eq(2))).thenReturn(null);
+        when(storage.findAllByRequesterIdNotAfter(1L, created, 5L, PageRequest.of(0, 2))).thenReturn(older);
+        List<ItemRequestDto> olderDtos = List.of(new ItemRequestDto(4L, "Request 4", created, List.of()));
+        when(itemRequestMapper.transformItemRequestListToItemRequestDtoList(older)).thenReturn(olderDtos);
+
+        ItemRequestPageDto page = requestService.getRequestsPage(1L, cursor, 2);
+
+        assertEquals(olderDtos, page.getRequests());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testGetRequestsPageInvalidCursor() {
+        assertThrows(BadRequestException.class, () -> requestService.getRequestsPage(1L, "%%%", 2));
+    }
+
+    @Test
+    public void testGetMatches() {
+        when(userService.validateUserDto(2L)).thenReturn(new User(2L, "Owner", "owner@example.com", 0L));
+        RequestMatch match = new RequestMatch(1L, "Нужна дрель", LocalDateTime.now(), 1, List.of(5L));
+        when(matchingEngine.findMatches(2L)).thenReturn(List.of(match));
+        RequestMatchDto matchDto = RequestMatchDto.builder().requestId(1L).itemIds(List.of(5L)).build();
+        when(itemRequestMapper.transformRequestMatchToRequestMatchDto(match)).thenReturn(matchDto);
+
+        List<RequestMatchDto> matches = requestService.getMatches(2L);
+
+        assertEquals(List.of(matchDto), matches);
     }
 
     @Test
     public void testGetRequests() {
-        User mockUser = new User(1L, "John Doe", "john.doe@example.com");
+        User mockUser = new User(1L, "John Doe", "john.doe@example.com", 0L);
         when(userService.validateUserDto(ArgumentMatchers.anyLong())).thenReturn(mockUser);
 
         List<ItemRequest> mockRequests = new ArrayList<>();
-        mockRequests.add(new ItemRequest(1L, "Request 1", LocalDateTime.now(), mockUser, new ArrayList<>()));
-        mockRequests.add(new ItemRequest(2L, "Request 2", LocalDateTime.now(), mockUser, new ArrayList<>()));
+        mockRequests.add(new ItemRequest(1L, "Request 1", LocalDateTime.now(), mockUser));
+        mockRequests.add(new ItemRequest(2L, "Request 2", LocalDateTime.now(), mockUser));
         when(storage.findAllByRequesterId(1L)).thenReturn(mockRequests);
 
         List<ItemRequestDto> expectedDtos = mockRequests.stream()
                 .map(r -> new ItemRequestDto(r.getId(), r.getDescription(), r.getCreated(), new ArrayList<>()))
                 .collect(Collectors.toList());
-        when(itemRequestMapper.transformItemRequestToItemRequestDto(any(ItemRequest.class)))
-                .thenReturn(expectedDtos.get(0), expectedDtos.get(1));
+        when(itemRequestMapper.transformItemRequestListToItemRequestDtoList(mockRequests)).thenReturn(expectedDtos);
 
         List<ItemRequestDto> requestDtos = requestService.getRequests(1L);
 
@@ -100,20 +176,20 @@ public class RequestServiceImplTest {
 
     @Test
     public void testGetRequestsByParameter() {
-        User mockUser = new User(1L, "John Doe", "john.doe@example.com");
+        User mockUser = new User(1L, "John Doe", "john.doe@example.com", 0L);
         when(userService.validateUserDto(ArgumentMatchers.anyLong())).thenReturn(mockUser);
 
         List<ItemRequest> mockRequests = new ArrayList<>();
-        mockRequests.add(new ItemRequest(1L, "Request 1", LocalDateTime.now(), mockUser, new ArrayList<>()));
-        mockRequests.add(new ItemRequest(2L, "Request 2", LocalDateTime.now(), mockUser, new ArrayList<>()));
-        when(storage.findAllByRequesterIdNot(1L, PageRequest.of(0, 10, Sort.by("created").descending())))
+        mockRequests.add(new ItemRequest(1L, "Request 1", LocalDateTime.now(), mockUser));
+        mockRequests.add(new ItemRequest(2L, "Request 2", LocalDateTime.now(), mockUser));
+        when(requestFeed.find(1L, null, 0, 10)).thenReturn(null);
+        when(storage.findAllByRequesterIdNotOrderByCreatedDescIdDesc(1L, OffsetPageRequest.of(0, 10)))
                 .thenReturn(mockRequests);
 
         List<ItemRequestDto> expectedDtos = mockRequests.stream()
                 .map(r -> new ItemRequestDto(r.getId(), r.getDescription(), r.getCreated(), new ArrayList<>()))
                 .collect(Collectors.toList());
-        when(itemRequestMapper.transformItemRequestToItemRequestDto(any(ItemRequest.class)))
-                .thenReturn(expectedDtos.get(0), expectedDtos.get(1));
+        when(itemRequestMapper.transformItemRequestListToItemRequestDtoList(mockRequests)).thenReturn(expectedDtos);
 
         List<ItemRequestDto> requestDtos = requestService.getRequestsByParameter(1L, 0, 10);
 
@@ -125,12 +201,26 @@ public class RequestServiceImplTest {
         assertEquals("Request 2", requestDtos.get(1).getDescription());
     }
 
+    @Test
+    public void testGetRequestsByParameterUsesOffsetNotPageBoundary() {
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<ItemRequest> requests = List.of(new ItemRequest(4L, "Request 4", created, new User()));
+        List<ItemRequestDto> dtos = List.of(new ItemRequestDto(4L, "Request 4", created, List.of()));
+        when(requestFeed.find(1L, null, 3, 2)).thenReturn(null);
+        when(storage.findAllByRequesterIdNotOrderByCreatedDescIdDesc(1L, OffsetPageRequest.of(3, 2)))
+                .thenReturn(requests);
+        when(itemRequestMapper.transformItemRequestListToItemRequestDtoList(requests)).thenReturn(dtos);
+
+        assertEquals(dtos, requestService.getRequestsByParameter(1L, 3, 2));
+        assertEquals(3L, OffsetPageRequest.of(3, 2).getOffset());
+    }
+
     @Test
     public void testGetRequestById() {
-        User mockUser = new User(1L, "John Doe", "john.doe@example.com");
+        User mockUser = new User(1L, "John Doe", "john.doe@example.com", 0L);
         when(userService.validateUserDto(ArgumentMatchers.anyLong())).thenReturn(mockUser);
 
-        ItemRequest mockRequest = new ItemRequest(1L, "Test request", LocalDateTime.now(), mockUser, new ArrayList<>());
+        ItemRequest mockRequest = new ItemRequest(1L, "Test request", LocalDateTime.now(), mockUser);
         when(storage.findById(1L)).thenReturn(Optional.of(mockRequest));
 
         ItemRequestDto expectedDto = new ItemRequestDto(1L, "Test request", LocalDateTime.now(), new ArrayList<>());
@@ -145,7 +235,7 @@ public class RequestServiceImplTest {
 
     @Test
     public void testGetRequestByIdNotFound() {
-        User mockUser = new User(1L, "John Doe", "john.doe@example.com");
+        User mockUser = new User(1L, "John Doe", "john.doe@example.com", 0L);
         when(userService.validateUserDto(ArgumentMatchers.anyLong())).thenReturn(mockUser);
 
         when(storage.findById(1L)).thenReturn(Optional.empty());
@@ -155,8 +245,7 @@ public class RequestServiceImplTest {
 
     @Test
     public void testValidateItemRequestFound() {
-        ItemRequest mockRequest = new ItemRequest(1L, "Test request", LocalDateTime.now(),
-                new User(), Collections.EMPTY_LIST);
+        ItemRequest mockRequest = new ItemRequest(1L, "Test request", LocalDateTime.now(), new User());
         when(storage.findById(1L)).thenReturn(Optional.of(mockRequest));
 
         ItemRequest validatedRequest = requestService.validateItemRequest(1L);
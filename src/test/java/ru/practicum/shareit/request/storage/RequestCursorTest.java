@@ -0,0 +1,38 @@
+package ru.practicum.shareit.request.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCursorTest {
+
+    @Test
+    void encodeAndDecode_shouldRoundTrip() {
+        LocalDateTime created = LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_000_000);
+
+        RequestCursor decoded = RequestCursor.decode(new RequestCursor(created, 42L).encode());
+
+        assertEquals(created, decoded.getCreated());
+        assertEquals(42L, decoded.getId());
+    }
+
+    @Test
+    void decode_shouldThrowBadRequestForInvalidToken() {
+        assertNull(RequestCursor.decode(""));
+        assertThrows(BadRequestException.class, () -> RequestCursor.decode("not-a-cursor"));
+    }
+
+    @Test
+    void isBefore_shouldCompareCreatedThenId() {
+        LocalDateTime created = LocalDateTime.of(2024, 5, 1, 10, 30);
+        RequestCursor cursor = new RequestCursor(created, 5L);
+
+        assertTrue(cursor.isBefore(created.minusSeconds(1), 9L));
+        assertTrue(cursor.isBefore(created, 4L));
+        assertFalse(cursor.isBefore(created, 5L));
+        assertFalse(cursor.isBefore(created.plusSeconds(1), 1L));
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.request.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class RequestStorageTest {
+
+    @Autowired
+    private RequestStorage requestStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Test
+    void findAllByRequesterIdNot_shouldStartAtOffsetAndBreakTiesById() {
+        User requester = userStorage.save(User.builder().name("requester").email("requester@example.com").build());
+        User reader = userStorage.save(User.builder().name("reader").email("reader@example.com").build());
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(requestStorage.save(ItemRequest.builder()
+                    .description("Request " + i)
+                    .created(i < 2 ? created.plusHours(1) : created)
+                    .requester(requester)
+                    .build()).getId());
+        }
+
+        List<Long> page = requestStorage.findAllByRequesterIdNotOrderByCreatedDescIdDesc(reader.getId(),
+                        OffsetPageRequest.of(3, 2)).stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(ids.get(3), ids.get(2)), page);
+    }
+}
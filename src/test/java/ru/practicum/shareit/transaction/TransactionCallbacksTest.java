@@ -0,0 +1,57 @@
+package ru.practicum.shareit.transaction;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionCallbacksTest {
+
+    @Test
+    void withoutTransaction_shouldRunOnlyAfterCommitImmediately() {
+        List<String> calls = new ArrayList<>();
+
+        TransactionCallbacks.afterCommit(() -> calls.add("commit"));
+        TransactionCallbacks.afterCompletion(() -> calls.add("completion"));
+        TransactionCallbacks.afterRollback(() -> calls.add("rollback"));
+
+        assertEquals(List.of("commit"), calls);
+    }
+
+    @Test
+    void committed_shouldRunCommitAndCompletionCallbacks() {
+        List<String> calls = complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(List.of("commit", "completion"), calls);
+    }
+
+    @Test
+    void rolledBack_shouldRunCompletionAndRollbackCallbacks() {
+        List<String> calls = complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(List.of("completion", "rollback"), calls);
+    }
+
+    private List<String> complete(int status) {
+        List<String> calls = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            TransactionCallbacks.afterCommit(() -> calls.add("commit"));
+            TransactionCallbacks.afterCompletion(() -> calls.add("completion"));
+            TransactionCallbacks.afterRollback(() -> calls.add("rollback"));
+            assertEquals(List.of(), calls);
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+            }
+            synchronizations.forEach(s -> s.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        return calls;
+    }
+}
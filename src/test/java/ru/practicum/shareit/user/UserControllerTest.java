@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -15,6 +16,8 @@ import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserUpdatedDto;
 import ru.practicum.shareit.user.storage.UserStorage;
 
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 public class UserControllerTest {
@@ -96,6 +99,42 @@ public class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Updated User"));
     }
 
+    @Test
+    public void getUserById_MatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/users/{userId}", userId))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/{userId}", userId)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+    }
+
+    @Test
+    public void updateUser_StaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/users/{userId}", userId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String firstUpdate = objectMapper.writeValueAsString(UserUpdatedDto.builder().name("First").build());
+        String secondUpdate = objectMapper.writeValueAsString(UserUpdatedDto.builder().name("Second").build());
+
+        String newEtag = mockMvc.perform(MockMvcRequestBuilders.patch("/users/{userId}", userId)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(firstUpdate))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(MockMvcRequestBuilders.patch("/users/{userId}", userId)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(secondUpdate))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+
+        assertNotEquals(etag, newEtag);
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/{userId}", userId))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("First"));
+    }
+
     @Test
     public void deleteUser_ExistingUserId_ShouldReturnOk() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.delete("/users/{userId}", userId))
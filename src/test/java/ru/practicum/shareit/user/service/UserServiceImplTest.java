@@ -1,11 +1,19 @@
 package ru.practicum.shareit.user.service;
 
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import ru.practicum.shareit.context.RequestIdentityMap;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+import ru.practicum.shareit.request.feed.RequestFeed;
+import ru.practicum.shareit.request.matching.RequestMatchingEngine;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.dto.UserCreateDto;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -13,6 +21,7 @@ import ru.practicum.shareit.user.dto.UserUpdatedDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -28,12 +37,30 @@ class UserServiceImplTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private RequestFeed requestFeed;
+
+    @Mock
+    private RequestMatchingEngine requestMatchingEngine;
+
+    @Spy
+    private RequestIdentityMap identityMap = new RequestIdentityMap();
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache cache;
+
     @InjectMocks
     private UserServiceImpl userService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
     }
 
     @Test
@@ -105,16 +132,36 @@ class UserServiceImplTest {
 
         when(userStorage.findById(userId)).thenReturn(Optional.of(user));
         when(userMapper.trasformUserUpdatedDtoToUser(userUpdatedDto, userId)).thenReturn(updatedUser);
-        when(userStorage.save(user)).thenReturn(user);
+        when(userStorage.saveAndFlush(user)).thenReturn(user);
         when(userMapper.transformUserToUserDto(user)).thenReturn(userDto);
 
-        UserDto result = userService.updateUser(userId, userUpdatedDto);
+        UserDto result = userService.updateUser(userId, userUpdatedDto, null);
 
         assertNotNull(result);
         assertEquals("newEmail@example.com", updatedUser.getEmail());
         assertEquals("newUsername", updatedUser.getName());
     }
 
+    @Test
+    void updateUser_StaleVersion_ShouldThrowPreconditionFailed() {
+        long userId = 1L;
+        UserUpdatedDto userUpdatedDto = new UserUpdatedDto("newUsername", "newEmail@example.com");
+        User user = User.builder()
+                .id(userId)
+                .name("username")
+                .email("email@example.com")
+                .version(3L)
+                .build();
+
+        when(userStorage.findById(userId)).thenReturn(Optional.of(user));
+
+        PreconditionFailedException exception = assertThrows(PreconditionFailedException.class, () ->
+                userService.updateUser(userId, userUpdatedDto, 2L));
+
+        assertEquals("Пользователь с ID 1 был изменен, текущая версия 3", exception.getMessage());
+        verify(userStorage, never()).saveAndFlush(any());
+    }
+
     @Test
     void removeUser_ShouldReturnRemovedUser() {
         long userId = 1L;
@@ -135,6 +182,8 @@ class UserServiceImplTest {
         UserDto result = userService.removeUser(userId);
 
         verify(userStorage, times(1)).deleteById(userId);
+        verify(requestFeed).removeRequester(userId);
+        verify(requestMatchingEngine).removeOwner(userId);
         assertNotNull(result);
         assertEquals("username", result.getName());
     }
@@ -170,4 +219,51 @@ class UserServiceImplTest {
 
         assertThrows(NotFoundException.class, () -> userService.getUserById(userId));
     }
-}
\ No newline at end of file
+
+    @Test
+    void validateUserDto_ShouldLoadUserFromStorage() {
+        User user = User.builder().id(1L).name("username").email("email@example.com").build();
+        when(userStorage.findById(1L)).thenReturn(Optional.of(user));
+
+        assertEquals(user, userService.validateUserDto(1L));
+
+        verify(identityMap).get(eq(User.class), eq(1L), any());
+        verify(userStorage).findById(1L);
+    }
+
+    @Test
+    void validateUserDto_ShouldNotCacheMissingUser() {
+        when(userStorage.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> userService.validateUserDto(1L));
+        assertThrows(NotFoundException.class, () -> userService.validateUserDto(1L));
+
+        verify(userStorage, times(2)).findById(1L);
+    }
+
+    @Test
+    void updateUser_ShouldInvalidateCachedUser() {
+        User user = User.builder().id(1L).name("username").email("email@example.com").build();
+        when(userStorage.findById(1L)).thenReturn(Optional.of(user));
+        when(userMapper.trasformUserUpdatedDtoToUser(any(), eq(1L))).thenReturn(User.builder().name("new").build());
+        userService.validateUserDto(1L);
+
+        userService.updateUser(1L, new UserUpdatedDto("new", null), null);
+
+        verify(identityMap).evict(User.class, 1L);
+    }
+
+    @Test
+    void removeUser_ShouldInvalidateCachedUser() {
+        User user = User.builder().id(1L).name("username").email("email@example.com").build();
+        when(userStorage.findById(1L)).thenReturn(Optional.of(user));
+        when(userMapper.transformUserToUserDto(user)).thenReturn(UserDto.builder().id(1L).build());
+        userService.validateUserDto(1L);
+
+        userService.removeUser(1L);
+
+        verify(identityMap).evict(User.class, 1L);
+        verify(cache).evictEntityData(ItemRequest.class);
+        verify(cache).evictDefaultQueryRegion();
+    }
+}